@@ -0,0 +1,46 @@
+package com.example.demo;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-repository changelog: {@code repos} logs of 2000 commits each. {@code singleThread}
+ * parses the same logs one after another on a single-thread executor, as a baseline for the scaling.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChangelogBenchmark {
+
+    @Param({"1", "40"})
+    int repos;
+
+    private final ChangelogService service = new ChangelogService();
+    private final ChangelogService sequential = new ChangelogService(Executors::newSingleThreadExecutor);
+    private List<ChangelogService.RepoLog> logs;
+
+    @Setup
+    public void setUp() {
+        logs = new ArrayList<>(repos);
+        for (int i = 0; i < repos; i++) {
+            logs.add(new ChangelogService.RepoLog("service-" + i, "v1.0.0..v1.1.0", SyntheticLogs.log(2000 + i)));
+        }
+    }
+
+    @Benchmark
+    public String parallel() {
+        return service.build("Release 1.1", logs);
+    }
+
+    @Benchmark
+    public String singleThread() {
+        return sequential.build("Release 1.1", logs);
+    }
+}
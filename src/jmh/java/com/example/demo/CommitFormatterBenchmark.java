@@ -0,0 +1,22 @@
+package com.example.demo;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** {@link CommitFormatter#toConventional}, including 72-column body wrapping. */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommitFormatterBenchmark {
+
+    private final CommitMessage longCommit = SyntheticLogs.longCommit();
+
+    @Benchmark
+    public String toConventional() {
+        return CommitFormatter.toConventional(longCommit);
+    }
+}
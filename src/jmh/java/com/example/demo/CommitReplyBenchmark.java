@@ -0,0 +1,51 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/** JSON extraction that follows every model call in {@link CommitService#generate}. */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommitReplyBenchmark {
+
+    /** clean = the reply is the JSON, prose = JSON inside a fenced, chatty reply, garbage = no JSON (fallback). */
+    @Param({"clean", "prose", "garbage"})
+    String reply;
+
+    private CommitService service;
+    private String raw;
+
+    @Setup
+    public void setUp() {
+        var registry = new SimpleMeterRegistry();
+        var limiter = new ModelCallLimiter(1, 0, Duration.ZERO);
+        var metrics = new ModelMetrics(registry, limiter);
+        service = new CommitService(null,
+                new CommitCache(false, 1, Duration.ofMinutes(1), "", registry),
+                new CommitExamples(null, null, metrics, registry, false, "", 3, 0.8, 0.97, 8, 12),
+                limiter, metrics, new PromptTemplates("", Duration.ZERO),
+                registry, "", "", false);
+
+        String json = """
+                {"type":"feat","scope":"parser","subject":"stream git-log parsing",\
+                "body":"Read the body line by line.\\nEmit commits as delimiters arrive.",\
+                "breakingChange":null,"issues":["#12"]}""";
+        raw = switch (reply) {
+            case "clean" -> json;
+            case "prose" -> "Sure! Here is the commit message:\n```json\n" + json + "\n```\nLet me know if you need changes.";
+            default -> "I could not determine a commit message for this diff.";
+        };
+    }
+
+    @Benchmark
+    public CommitMessage parseModelReply() {
+        return service.parse(raw);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Parsing and rendering of PR descriptions, from 10 to 100k commits. */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrDescriptionBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int commits;
+
+    private final PrDescriptionService service = new PrDescriptionService(null, null, null, null, 12_000, 4);
+    private final ObjectMapper mapper = new ObjectMapper();
+    private String log;
+    private List<CommitMessage> parsed;
+    private byte[] jsonArray, ndjson;
+
+    @Setup
+    public void setUp() throws IOException {
+        log = SyntheticLogs.log(commits);
+        parsed = SyntheticLogs.commits(commits);
+        jsonArray = mapper.writeValueAsBytes(parsed);
+        var lines = new ByteArrayOutputStream();
+        for (CommitMessage c : parsed) {
+            lines.write(mapper.writeValueAsBytes(c));
+            lines.write('\n');
+        }
+        ndjson = lines.toByteArray();
+    }
+
+    @Benchmark
+    public List<CommitMessage> parseCommitsFromLog() {
+        return service.parseCommitsFromLog(log);
+    }
+
+    @Benchmark
+    public String buildDeterministic() {
+        return service.buildDeterministic(parsed);
+    }
+
+    /** The JSON-array /generate-pr-description path: whole list materialized, then rendered. */
+    @Benchmark
+    public Writer renderFromJsonArray() throws IOException {
+        Writer sink = Writer.nullWriter();
+        List<CommitMessage> commits = mapper.readValue(jsonArray, new TypeReference<>() {});
+        sink.write(service.buildDeterministic(commits));
+        return sink;
+    }
+
+    /** The NDJSON /generate-pr-description path: streaming parser straight into the renderer. */
+    @Benchmark
+    public Writer renderFromNdjson() throws IOException {
+        Writer sink = Writer.nullWriter();
+        service.readNdjson(new ByteArrayInputStream(ndjson)).writeTo(sink);
+        return sink;
+    }
+
+    /** The /generate-pr-description-from-log path: streamed parse straight into a streamed render. */
+    @Benchmark
+    public Writer renderFromLog() throws IOException {
+        Writer sink = Writer.nullWriter();
+        service.renderDeterministic(new StringReader(log), sink);
+        return sink;
+    }
+}
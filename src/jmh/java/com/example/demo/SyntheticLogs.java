@@ -0,0 +1,65 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Deterministic, realistic-looking commit data for the benchmarks. */
+final class SyntheticLogs {
+    private SyntheticLogs() {}
+
+    private static final String[] TYPES = {"feat", "fix", "perf", "refactor", "docs", "test", "build", "ci", "chore"};
+    private static final String[] SCOPES = {"api", "parser", "controller", "service", "ci", "deps", null};
+    private static final String[] VERBS = {"add", "fix", "remove", "rename", "speed up", "simplify", "document"};
+    private static final String[] NOUNS = {"commit parser", "PR renderer", "cache eviction", "diff condenser",
+            "model call limiter", "batch endpoint", "prompt template", "SSE stream", "fallback message"};
+
+    /** A raw {@code git log --format='%B%n----8<----'} dump of {@code n} commits. */
+    static String log(int n) {
+        Random r = new Random(n);
+        StringBuilder sb = new StringBuilder(n * 320);
+        for (int i = 0; i < n; i++) {
+            String type = TYPES[r.nextInt(TYPES.length)];
+            String scope = SCOPES[r.nextInt(SCOPES.length)];
+            sb.append(type);
+            if (scope != null) sb.append('(').append(scope).append(')');
+            sb.append(": ").append(subject(r)).append("\n\n");
+            int bodyLines = r.nextInt(5);
+            for (int j = 0; j < bodyLines; j++) {
+                sb.append(r.nextBoolean() ? "- " : "").append(sentence(r)).append('\n');
+            }
+            if (r.nextInt(10) == 0) sb.append("\nRefs #").append(1000 + r.nextInt(500)).append(" PROJ-").append(r.nextInt(90)).append('\n');
+            if (r.nextInt(40) == 0) sb.append("BREAKING CHANGE: ").append(sentence(r)).append('\n');
+            sb.append("\n----8<----\n");
+        }
+        return sb.toString();
+    }
+
+    static List<CommitMessage> commits(int n) {
+        List<CommitMessage> out = new ArrayList<>(n);
+        new PrDescriptionService(null, null, null, null, 12_000, 4).parseCommitsFromLog(log(n)).forEach(out::add);
+        return out;
+    }
+
+    /** A commit with a long, unwrapped body, as the model often returns. */
+    static CommitMessage longCommit() {
+        Random r = new Random(7);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 12; i++) body.append(sentence(r)).append(' ');
+        return new CommitMessage("feat", "parser", subject(r), body.toString(), "drop the String overload",
+                List.of("#1234", "PROJ-7"));
+    }
+
+    private static String subject(Random r) {
+        return VERBS[r.nextInt(VERBS.length)] + " " + NOUNS[r.nextInt(NOUNS.length)];
+    }
+
+    private static String sentence(Random r) {
+        return capitalize(subject(r)) + " so that the " + NOUNS[r.nextInt(NOUNS.length)]
+                + " no longer " + VERBS[r.nextInt(VERBS.length)] + "s the " + NOUNS[r.nextInt(NOUNS.length)] + ".";
+    }
+
+    private static String capitalize(String s) {
+        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+}
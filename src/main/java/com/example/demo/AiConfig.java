@@ -1,13 +1,23 @@
 package com.example.demo;
 
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @Configuration
 public class AiConfig {
     @Bean
     ChatClient chatClient(ChatClient.Builder builder) {
         return builder.build();
     }
+
+    /** Shared pool for /generate-commits; its size caps concurrent model calls across all batches. */
+    @Bean(destroyMethod = "shutdownNow")
+    ExecutorService commitBatchExecutor(@Value("${commit-ai.batch.concurrency:8}") int concurrency) {
+        return Executors.newFixedThreadPool(concurrency);
+    }
 }
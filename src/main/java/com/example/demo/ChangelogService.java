@@ -0,0 +1,187 @@
+package com.example.demo;
+
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Release changelogs across many repositories in one go. Every {@link RepoLog} is parsed on its
+ * own virtual thread, folded straight into a per-log summary grouped by scope and type, and the
+ * summaries are merged in request order: one section per repository (ranges of the same
+ * repository are combined), one subsection per scope, and a single list of breaking changes and
+ * issue references. {@code #12} is local to its repository, so with several repositories it is
+ * listed as {@code repo#12}; keys such as {@code JIRA-7} are shared and listed once.
+ */
+@Service
+public class ChangelogService {
+
+    /** One repository's {@code git log --format='%B%n----8<----' <range>} output. */
+    public record RepoLog(String repo, String range, String log) {}
+
+    private static final String NO_SCOPE = "";
+    /** Alphabetical and case-insensitive ("Auth" and "auth" are one scope), unscoped commits last. */
+    private static final Comparator<String> SCOPE_ORDER = Comparator.comparing(String::isEmpty)
+            .thenComparing(String.CASE_INSENSITIVE_ORDER);
+
+    private final Supplier<ExecutorService> pools;
+
+    public ChangelogService() {
+        this(Executors::newVirtualThreadPerTaskExecutor);
+    }
+
+    /** {@code pools} makes the executor for one {@link #build} call, which shuts it down when done. */
+    ChangelogService(Supplier<ExecutorService> pools) {
+        this.pools = pools;
+    }
+
+    public String build(String title, List<RepoLog> logs) {
+        List<Future<RepoChangelog>> parsed = new ArrayList<>();
+        try (ExecutorService pool = pools.get()) {
+            for (RepoLog log : logs == null ? List.<RepoLog>of() : logs) {
+                parsed.add(pool.submit(() -> parse(log)));
+            }
+        } // close() waits for every task; parse does not throw
+
+        // merged in request order, so output does not depend on scheduling
+        Map<String, RepoChangelog> byRepo = new LinkedHashMap<>();
+        for (Future<RepoChangelog> f : parsed) {
+            RepoChangelog c = f.resultNow();
+            byRepo.merge(c.repo, c, RepoChangelog::mergeFrom);
+        }
+        return render(title == null || title.isBlank() ? "Changelog" : title.strip(), byRepo.values());
+    }
+
+    private static RepoChangelog parse(RepoLog log) {
+        String repo = log.repo() == null || log.repo().isBlank() ? "repository" : log.repo().strip();
+        var changelog = new RepoChangelog(repo, log.range());
+        if (log.log() == null || log.log().isBlank()) return changelog;
+        try {
+            CommitLogParser.parse(new StringReader(log.log()), changelog::accept);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for a StringReader
+        }
+        return changelog;
+    }
+
+    // ---------- rendering ----------
+
+    private static String render(String title, Collection<RepoChangelog> repos) {
+        int commits = 0, repoCount = repos.size();
+        List<String> breaking = new ArrayList<>();
+        Set<String> issues = new LinkedHashSet<>();
+        for (RepoChangelog r : repos) {
+            commits += r.count;
+            for (String b : r.breaking) breaking.add(r.repo + ": " + b);
+            for (String i : r.issues) issues.add(repoCount > 1 && i.startsWith("#") ? r.repo + i : i);
+        }
+
+        StringBuilder out = new StringBuilder(4096);
+        out.append("# ").append(title).append("\n\n");
+        out.append("## Summary\n");
+        out.append("- ").append(commits).append(commits == 1 ? " commit" : " commits")
+                .append(" across ").append(repoCount).append(repoCount == 1 ? " repository" : " repositories")
+                .append(".\n\n");
+
+        for (RepoChangelog r : repos) {
+            out.append("## ").append(r.repo);
+            if (!r.ranges.isEmpty()) out.append(" (").append(String.join(", ", r.ranges)).append(')');
+            out.append('\n');
+            if (r.count == 0) {
+                out.append("_No commits in range._\n\n");
+                continue;
+            }
+            for (var scope : r.scopes.entrySet()) {
+                boolean unscoped = scope.getKey().isEmpty();
+                if (!unscoped || r.scopes.size() > 1) { // a repo without any scopes needs no subheading
+                    out.append("### ").append(unscoped ? "other" : scope.getKey()).append('\n');
+                }
+                for (StringBuilder entries : scope.getValue()) {
+                    if (entries != null) out.append(entries);
+                }
+            }
+            out.append('\n');
+        }
+
+        if (!breaking.isEmpty()) {
+            out.append("## ⚠️ Breaking Changes\n");
+            for (String b : breaking) out.append("- ").append(b).append('\n');
+            out.append('\n');
+        }
+        if (!issues.isEmpty()) {
+            out.append("## Related Issues\n").append(String.join(" ", issues)).append("\n\n");
+        }
+        out.append("_Generated from Conventional Commit messages._\n");
+        return out.toString();
+    }
+
+    /** Everything the changelog needs from one repository, without holding its commits. */
+    private static final class RepoChangelog {
+        final String repo;
+        final List<String> ranges = new ArrayList<>();
+        /** scope → entries per {@link CommitType} ordinal, in {@link #SCOPE_ORDER}. */
+        final Map<String, StringBuilder[]> scopes = new TreeMap<>(SCOPE_ORDER);
+        final List<String> breaking = new ArrayList<>();
+        final Set<String> issues = new LinkedHashSet<>();
+        int count;
+
+        RepoChangelog(String repo, String range) {
+            this.repo = repo;
+            if (range != null && !range.isBlank()) ranges.add(range.strip());
+        }
+
+        void accept(CommitMessage c) {
+            count++;
+            CommitType type = c.type() == null ? CommitType.OTHER : CommitType.of(c.type());
+            String label = type != null ? type.label() : c.type().strip(); // unknown types go under OTHER as written
+            if (type == null) type = CommitType.OTHER;
+            boolean isBreaking = c.breakingChange() != null && !c.breakingChange().isBlank();
+
+            String scope = c.scope() == null || c.scope().isBlank() ? NO_SCOPE : c.scope().strip();
+            StringBuilder[] byType = scopes.computeIfAbsent(scope, s -> new StringBuilder[CommitType.values().length]);
+            StringBuilder sb = byType[type.ordinal()];
+            if (sb == null) sb = byType[type.ordinal()] = new StringBuilder(128);
+
+            sb.append("- ").append(label).append(isBreaking ? "!: " : ": ")
+                    .append(c.subject() == null ? "" : c.subject().strip());
+            if (c.issues() != null && !c.issues().isEmpty()) {
+                sb.append(" (").append(String.join(", ", c.issues())).append(')');
+                issues.addAll(c.issues());
+            }
+            sb.append('\n');
+            if (isBreaking) breaking.add(c.breakingChange().strip());
+        }
+
+        /** Fold a later range of the same repository into this one. */
+        RepoChangelog mergeFrom(RepoChangelog later) {
+            ranges.addAll(later.ranges);
+            count += later.count;
+            for (var e : later.scopes.entrySet()) {
+                StringBuilder[] mine = scopes.computeIfAbsent(e.getKey(), s -> new StringBuilder[CommitType.values().length]);
+                StringBuilder[] theirs = e.getValue();
+                for (int t = 0; t < theirs.length; t++) {
+                    if (theirs[t] == null) continue;
+                    if (mine[t] == null) mine[t] = theirs[t];
+                    else mine[t].append(theirs[t]);
+                }
+            }
+            breaking.addAll(later.breaking);
+            issues.addAll(later.issues);
+            return this;
+        }
+    }
+}
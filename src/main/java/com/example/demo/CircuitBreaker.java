@@ -0,0 +1,109 @@
+package com.example.demo;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Count-based circuit breaker for model calls. While {@code CLOSED} it keeps the outcomes of the
+ * last {@code window} calls; once at least {@code minCalls} of them are recorded and the failure
+ * share reaches {@code failureRate} it opens, and every call is refused for {@code openFor}. Then
+ * a single probe is let through ({@code HALF_OPEN}): success closes the breaker, failure opens it
+ * for another {@code openFor}.
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final boolean[] window; // true = failure
+    private final int minCalls;
+    private final double failureRate;
+    private final long openNanos;
+    private final Consumer<State> onTransition;
+
+    private State state = State.CLOSED;
+    private int next, recorded, failures;
+    private long openedAt;
+    private boolean probing;
+
+    CircuitBreaker(int window, int minCalls, double failureRate, Duration openFor, Consumer<State> onTransition) {
+        this.window = new boolean[Math.max(1, window)];
+        this.minCalls = Math.max(1, Math.min(minCalls, this.window.length));
+        this.failureRate = failureRate;
+        this.openNanos = openFor.toNanos();
+        this.onTransition = onTransition;
+    }
+
+    /** Whether a call may go ahead; every {@code true} must be followed by one of the {@code on…} methods. */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) return false;
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probing) return false;
+            probing = true;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            transition(State.CLOSED);
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minCalls && failures >= failureRate * recorded) open();
+        }
+    }
+
+    /** The call ended in a way that says nothing about the model's health (cancelled, rejected request). */
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) probing = false;
+    }
+
+    synchronized State state() {
+        // report an expired open period as half-open even before the next call notices
+        return state == State.OPEN && System.nanoTime() - openedAt >= openNanos ? State.HALF_OPEN : state;
+    }
+
+    /** Failure share of the calls currently in the window. */
+    synchronized double failureRate() {
+        return recorded == 0 ? 0 : (double) failures / recorded;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window.length) {
+            if (window[next]) failures--;
+        } else {
+            recorded++;
+        }
+        window[next] = failure;
+        if (failure) failures++;
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        reset();
+        openedAt = System.nanoTime();
+        transition(State.OPEN);
+    }
+
+    private void reset() {
+        next = recorded = failures = 0;
+        probing = false;
+    }
+
+    private void transition(State to) {
+        if (state == to) return;
+        state = to;
+        onTransition.accept(to);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content-addressed cache of parsed model answers for {@link CommitService#generate}.
+ * Keys are SHA-256 hashes of everything that shapes the prompt; entries are evicted
+ * least-recently-used once {@code max-size} is reached, or when their TTL expires.
+ * If {@code commit-ai.cache.file} is set the cache is loaded on startup and saved on shutdown.
+ */
+@Component
+public class CommitCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CommitCache.class);
+
+    record Entry(String key, long expiresAt, CommitMessage message) {}
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Path file;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Counter hits, misses, evictedSize, evictedExpired;
+    private final Map<String, Entry> entries;
+
+    public CommitCache(@Value("${commit-ai.cache.enabled:true}") boolean enabled,
+                       @Value("${commit-ai.cache.max-size:1000}") int maxSize,
+                       @Value("${commit-ai.cache.ttl:24h}") Duration ttl,
+                       @Value("${commit-ai.cache.file:}") String file,
+                       MeterRegistry registry) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.file = file.isBlank() ? null : Path.of(file);
+
+        this.hits = Counter.builder("commit.cache.requests").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("commit.cache.requests").tag("result", "miss").register(registry);
+        this.evictedSize = Counter.builder("commit.cache.evictions").tag("reason", "size").register(registry);
+        this.evictedExpired = Counter.builder("commit.cache.evictions").tag("reason", "expired").register(registry);
+
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= CommitCache.this.maxSize) return false;
+                evictedSize.increment();
+                return true;
+            }
+        };
+        registry.gauge("commit.cache.size", this, c -> c.size());
+        load();
+    }
+
+    /** Hash the given prompt ingredients into a cache key. */
+    public static String key(String... parts) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            for (String p : parts) {
+                byte[] bytes = (p == null ? "" : p).getBytes(StandardCharsets.UTF_8);
+                // length-prefix every part so ("ab","c") and ("a","bc") never collide
+                sha.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+                sha.update((byte) ':');
+                sha.update(bytes);
+            }
+            return HexFormat.of().formatHex(sha.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public CommitMessage get(String key) {
+        if (!enabled) return null;
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e != null && e.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(key);
+                evictedExpired.increment();
+                e = null;
+            }
+            (e == null ? misses : hits).increment();
+            return e == null ? null : e.message();
+        }
+    }
+
+    public void put(String key, CommitMessage message) {
+        if (!enabled) return;
+        synchronized (entries) {
+            entries.put(key, new Entry(key, System.currentTimeMillis() + ttlMillis, message));
+        }
+    }
+
+    public int size() {
+        synchronized (entries) { return entries.size(); }
+    }
+
+    // ---------- persistence ----------
+
+    private void load() {
+        if (!enabled || file == null || !Files.isRegularFile(file)) return;
+        try {
+            List<Entry> saved = mapper.readValue(file.toFile(), new TypeReference<List<Entry>>() {});
+            long now = System.currentTimeMillis();
+            synchronized (entries) {
+                for (Entry e : saved) {
+                    if (e.expiresAt() >= now) entries.put(e.key(), e);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not load cache from {}: {}", file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void save() {
+        if (!enabled || file == null) return;
+        List<Entry> snapshot;
+        synchronized (entries) { snapshot = new ArrayList<>(entries.values()); }
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            mapper.writeValue(tmp.toFile(), snapshot);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not save cache to {}: {}", file, e.getMessage());
+        }
+    }
+}
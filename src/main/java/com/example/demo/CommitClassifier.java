@@ -0,0 +1,204 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rule-based classifier for diffs that need no model to describe: test-only, docs-only,
+ * CI-only, {@code pom.xml} version bumps and pure renames. Returns {@code null} for anything
+ * ambiguous, which then goes to the model as before.
+ */
+public final class CommitClassifier {
+    private CommitClassifier() {}
+
+    private static final Pattern VERSION_LINE =
+            Pattern.compile("^[+-]\\s*<([\\w.-]*version)>\\s*([^<\\s]+)\\s*</\\1>\\s*$");
+    private static final Pattern ARTIFACT_ID = Pattern.compile("<artifactId>\\s*([^<\\s]+)\\s*</artifactId>");
+    private static final Pattern TEST_SUFFIX = Pattern.compile("(?i)(tests?|_test|\\.test|\\.spec)$");
+
+    public static CommitMessage classify(List<String> files, String diff) {
+        String d = diff == null ? "" : diff;
+        DiffFacts facts = DiffFacts.of(d);
+        Set<String> paths = new LinkedHashSet<>(files == null ? List.of() : files);
+        paths.addAll(facts.paths);
+        if (paths.isEmpty()) return null;
+
+        if (!facts.renames.isEmpty() && !facts.hasHunks && all(paths, facts::isRenamed)) {
+            return renames(facts.renames);
+        }
+        if (all(paths, CommitClassifier::isTest)) {
+            return message("test", testScope(paths), verb(paths, facts) + " " + testSubject(paths));
+        }
+        if (all(paths, CommitClassifier::isDoc)) {
+            return message("docs", null, paths.size() == 1
+                    ? "update " + fileName(paths.iterator().next())
+                    : "update documentation");
+        }
+        if (all(paths, CommitClassifier::isCi)) {
+            return message("ci", null, paths.size() == 1
+                    ? "update " + baseName(paths.iterator().next()) + " workflow"
+                    : "update CI workflows");
+        }
+        if (all(paths, p -> fileName(p).equals("pom.xml"))) {
+            return versionBump(d);
+        }
+        return null;
+    }
+
+    // ---------- rules ----------
+
+    private static CommitMessage renames(List<String[]> renames) {
+        if (renames.size() > 1) return message("refactor", null, "move " + renames.size() + " files");
+        String from = renames.get(0)[0], to = renames.get(0)[1];
+        boolean sameDir = dirOf(from).equals(dirOf(to));
+        return message("refactor", null, sameDir
+                ? "rename " + fileName(from) + " to " + fileName(to)
+                : "move " + fileName(from) + " to " + dirOf(to));
+    }
+
+    /** Only {@code <…version>} lines changed: name the artifact or property and the new version. */
+    private static CommitMessage versionBump(String diff) {
+        String lastArtifact = null, subject = null;
+        int bumps = 0;
+        for (String line : diff.split("\\R")) {
+            if (line.startsWith("+++") || line.startsWith("---")) continue;
+            Matcher a = ARTIFACT_ID.matcher(line);
+            if (a.find()) lastArtifact = a.group(1);
+            if (!line.startsWith("+") && !line.startsWith("-")) continue;
+            if (line.substring(1).isBlank()) continue;
+
+            Matcher v = VERSION_LINE.matcher(line);
+            if (!v.matches()) return null; // something other than a version changed
+            if (line.startsWith("+")) {
+                bumps++;
+                String tag = v.group(1);
+                String what = tag.equals("version")
+                        ? (lastArtifact == null ? "version" : lastArtifact)
+                        : tag.substring(0, tag.length() - ".version".length());
+                subject = "bump " + what + " to " + v.group(2);
+            }
+        }
+        if (bumps == 0) return null;
+        return message("build", "deps", bumps == 1 ? subject : "bump " + bumps + " versions in pom.xml");
+    }
+
+    // ---------- path categories ----------
+
+    /** JVM test classes go by the case of their suffix: {@code FooTest.java} is a test, {@code Latest.java} is not. */
+    private static boolean isTest(String p) {
+        String l = p.toLowerCase(Locale.ROOT);
+        String file = fileName(p), name = fileName(l);
+        return l.startsWith("src/test/") || l.contains("/src/test/")
+                || l.startsWith("test/") || l.startsWith("tests/") || l.contains("/__tests__/")
+                || file.endsWith("Test.java") || file.endsWith("Tests.java") || file.endsWith("IT.java")
+                || file.endsWith("Test.kt") || file.endsWith("Tests.kt")
+                || name.contains(".test.") || name.contains(".spec.")
+                || name.endsWith("_test.go") || (name.startsWith("test_") && name.endsWith(".py"));
+    }
+
+    private static boolean isDoc(String p) {
+        String l = p.toLowerCase(Locale.ROOT);
+        String name = fileName(l);
+        return l.startsWith("docs/") || l.startsWith("doc/")
+                || name.endsWith(".md") || name.endsWith(".adoc") || name.endsWith(".rst")
+                || name.startsWith("readme") || name.startsWith("changelog") || name.startsWith("license");
+    }
+
+    private static boolean isCi(String p) {
+        String l = p.toLowerCase(Locale.ROOT);
+        return l.startsWith(".github/workflows/") || l.startsWith(".circleci/") || l.equals(".gitlab-ci.yml")
+                || l.equals("jenkinsfile") || l.equals("azure-pipelines.yml") || l.equals(".travis.yml");
+    }
+
+    // ---------- small helpers ----------
+
+    private static CommitMessage message(String type, String scope, String subject) {
+        return new CommitMessage(type, scope, subject, null, null, List.of());
+    }
+
+    private static boolean all(Set<String> paths, Predicate<String> p) {
+        for (String s : paths) if (!p.test(s)) return false;
+        return true;
+    }
+
+    private static String verb(Set<String> paths, DiffFacts facts) {
+        return facts.added.containsAll(paths) ? "add" : "update";
+    }
+
+    private static String testSubject(Set<String> paths) {
+        if (paths.size() > 1) return paths.size() + " test files";
+        String name = baseName(paths.iterator().next());
+        String subject = TEST_SUFFIX.matcher(name).replaceFirst("");
+        return subject.isBlank() || subject.equals(name) ? name : "tests for " + subject;
+    }
+
+    /** Module the tests belong to, when they all sit under the same top-level directory. */
+    private static String testScope(Set<String> paths) {
+        Set<String> tops = new HashSet<>();
+        for (String p : paths) {
+            int slash = p.indexOf('/');
+            tops.add(slash > 0 ? p.substring(0, slash) : "");
+        }
+        if (tops.size() != 1) return null;
+        String top = tops.iterator().next();
+        return Set.of("", "src", "test", "tests").contains(top) ? null : top;
+    }
+
+    private static String fileName(String p) {
+        return p.substring(p.lastIndexOf('/') + 1);
+    }
+
+    private static String baseName(String p) {
+        String name = fileName(p);
+        int dot = name.indexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private static String dirOf(String p) {
+        int slash = p.lastIndexOf('/');
+        return slash > 0 ? p.substring(0, slash) : ".";
+    }
+
+    /** What a single scan of the diff headers tells us. */
+    private static final class DiffFacts {
+        final Set<String> paths = new LinkedHashSet<>();
+        final Set<String> added = new HashSet<>();
+        final List<String[]> renames = new ArrayList<>();
+        boolean hasHunks;
+
+        boolean isRenamed(String path) {
+            for (String[] r : renames) if (r[0].equals(path) || r[1].equals(path)) return true;
+            return false;
+        }
+
+        static DiffFacts of(String diff) {
+            DiffFacts f = new DiffFacts();
+            String current = null, renameFrom = null;
+            for (String line : diff.split("\\R")) {
+                if (line.startsWith("diff --git ")) {
+                    int b = line.lastIndexOf(" b/");
+                    current = b >= 0 ? line.substring(b + 3) : null;
+                    if (current != null) f.paths.add(current);
+                } else if (line.startsWith("new file mode") && current != null) {
+                    f.added.add(current);
+                } else if (line.startsWith("rename from ")) {
+                    renameFrom = line.substring("rename from ".length());
+                    f.paths.add(renameFrom);
+                } else if (line.startsWith("rename to ") && renameFrom != null) {
+                    f.renames.add(new String[] { renameFrom, line.substring("rename to ".length()) });
+                    renameFrom = null;
+                } else if (line.startsWith("@@")) {
+                    f.hasHunks = true;
+                }
+            }
+            return f;
+        }
+    }
+}
@@ -1,25 +1,58 @@
 package com.example.demo;
 
-import org.springframework.ai.chat.client.ChatClient;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
 
 @RestController
 public class CommitController {
 
+    private static final Logger log = LoggerFactory.getLogger(CommitController.class);
+
+    private static final String TEXT_PLAIN_UTF8 = MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8";
+    private static final long SSE_TIMEOUT_MS = 120_000;
+
     @Autowired
     private PrDescriptionService prDescriptionService;
 
-    // Make these OPTIONAL – app can run without them (e.g., in CI)
+    // OPTIONAL – app can run without it (e.g., in CI)
     @Autowired(required = false)
     private CommitService service;
 
-    @Autowired(required = false)
-    private ChatClient chat;
+    @Autowired
+    private ModelClient models;
+
+    @Autowired
+    private ExecutorService commitBatchExecutor;
+
+    @Autowired
+    private ChangelogService changelogService;
+
+    @Autowired
+    private PromptTemplates promptTemplates;
 
     @PostMapping(path = "/generate-pr-description",
             consumes = MediaType.APPLICATION_JSON_VALUE,
@@ -30,26 +63,121 @@ public class CommitController {
         return polish ? prDescriptionService.polishWithAi(md) : md;
     }
 
+    /**
+     * Same endpoint for bulk producers: one {@link CommitMessage} JSON object per line, optionally
+     * sent with {@code Content-Encoding: gzip}. Commits are streamed into the renderer as they are read.
+     */
+    @PostMapping(path = "/generate-pr-description",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.TEXT_PLAIN_VALUE)
+    public void generatePrDescriptionFromNdjson(InputStream body,
+                                                @RequestHeader(name = HttpHeaders.CONTENT_ENCODING, required = false)
+                                                String encoding,
+                                                @RequestParam(defaultValue = "false") boolean polish,
+                                                HttpServletResponse response) throws IOException {
+        boolean gzip = "gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding);
+        PrDescriptionRenderer renderer;
+        try (InputStream in = gzip ? new GZIPInputStream(body, 8192) : body) {
+            renderer = prDescriptionService.readNdjson(in);
+        } catch (JsonProcessingException e) {
+            var at = e.getLocation();
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Malformed NDJSON" + (at == null ? "" : " at line " + at.getLineNr()), e);
+        } catch (ZipException | EOFException e) {
+            if (!gzip) throw e;
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed gzip body", e);
+        }
+        // nothing is written until all input was read, so a bad line above still gets a clean 400
+        response.setContentType(TEXT_PLAIN_UTF8);
+        if (polish) {
+            response.getWriter().write(prDescriptionService.polishWithAi(renderer.render()));
+        } else {
+            renderer.writeTo(response.getWriter());
+        }
+    }
+
     @PostMapping(
             path = "/generate-pr-description-from-log",
             consumes = { MediaType.TEXT_PLAIN_VALUE, MediaType.ALL_VALUE },
             produces = MediaType.TEXT_PLAIN_VALUE
     )
-    public String generatePrDescriptionFromLog(@RequestBody String rawLog,
-                                               @RequestParam(defaultValue = "false") boolean polish) {
-        var commits = prDescriptionService.parseCommitsFromLog(rawLog == null ? "" : rawLog);
-        String md = prDescriptionService.buildDeterministic(commits);
+    public void generatePrDescriptionFromLog(Reader rawLog,
+                                             @RequestParam(defaultValue = "false") boolean polish,
+                                             HttpServletResponse response) throws IOException {
+        if (polish) {
+            var md = new StringWriter();
+            prDescriptionService.renderDeterministic(rawLog, md);
+            String polished = prDescriptionService.polishWithAi(md.toString());
+            response.setContentType(TEXT_PLAIN_UTF8); // only now, so a 429 can still be rendered as JSON
+            response.getWriter().write(polished);
+        } else {
+            // stream straight into the servlet writer – no intermediate String
+            response.setContentType(TEXT_PLAIN_UTF8);
+            prDescriptionService.renderDeterministic(rawLog, response.getWriter());
+        }
+    }
+
+    @PostMapping(
+            path = "/generate-pr-description-from-log/stream",
+            consumes = { MediaType.TEXT_PLAIN_VALUE, MediaType.ALL_VALUE },
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE
+    )
+    public SseEmitter streamPrDescriptionFromLog(Reader rawLog) throws IOException {
+        var md = new StringWriter();
+        prDescriptionService.renderDeterministic(rawLog, md);
+
+        var emitter = new SseEmitter(SSE_TIMEOUT_MS);
+        var stream = prDescriptionService.polishStreaming(md.toString(),
+                token -> send(emitter, "token", new Chunk(token)),
+                text -> { send(emitter, "result", new Chunk(text)); emitter.complete(); });
+        emitter.onTimeout(stream::dispose);
+        emitter.onError(e -> stream.dispose());
+        return emitter;
+    }
+
+    /** One changelog over many repositories and ranges, parsed in parallel. */
+    @PostMapping(path = "/changelog",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.TEXT_PLAIN_VALUE)
+    public String changelog(@RequestBody List<ChangelogService.RepoLog> logs,
+                            @RequestParam(defaultValue = "Changelog") String title) {
+        return changelogService.build(title, logs);
+    }
+
+    // ---------- incremental PR descriptions (commit store) ----------
+
+    /** SHAs the service already has for {@code pr}, newest first. */
+    @GetMapping(path = "/pr-description/commits", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<String> knownPrCommits(@RequestParam String pr) {
+        return prDescriptionService.knownCommits(pr);
+    }
+
+    /** Add the PR's new commits (newest first) and return the description over all of its commits. */
+    @PostMapping(path = "/pr-description/commits",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.TEXT_PLAIN_VALUE)
+    public String updatePrDescription(@RequestParam String pr,
+                                      @RequestBody List<PrDescriptionService.RawCommit> commits,
+                                      @RequestParam(defaultValue = "false") boolean polish) {
+        String md = prDescriptionService.describePr(pr, commits);
         return polish ? prDescriptionService.polishWithAi(md) : md;
     }
 
+    /** Drop the PR's commit list, e.g. after a force-push; the next POST starts from scratch. */
+    @DeleteMapping(path = "/pr-description/commits")
+    public void resetPrCommits(@RequestParam String pr) {
+        prDescriptionService.forgetPr(pr);
+    }
+
     @GetMapping(path = "/health", produces = MediaType.TEXT_PLAIN_VALUE)
     public String health() { return "ok"; }
 
     @GetMapping(path = "/ping-openai", produces = MediaType.TEXT_PLAIN_VALUE)
     public String pingOpenAI() {
-        if (chat == null) return "PING DISABLED (no ChatClient)";
-        try { return chat.prompt("Say OK").call().content(); }
-        catch (Exception e) { e.printStackTrace(); return "PING ERROR: " + e.getMessage(); }
+        if (!models.available()) return "PING DISABLED (no ChatClient)";
+        try { return models.call("ping", "Say OK"); }
+        catch (ModelBusyException busy) { throw busy; }
+        catch (Exception e) { log.warn("Ping failed", e); return "PING ERROR: " + e.getMessage(); }
     }
 
     @PostMapping(path = "/debug-generate-raw",
@@ -59,16 +187,15 @@ public class CommitController {
                            @RequestParam(defaultValue = "dev") String author,
                            @RequestParam String diff,
                            @RequestParam(name = "files", defaultValue = "") String filesRaw) {
-        if (chat == null) return "DEBUG DISABLED (no ChatClient)";
+        if (!models.available()) return "DEBUG DISABLED (no ChatClient)";
         var files = (filesRaw == null || filesRaw.isBlank())
                 ? List.<String>of()
                 : Arrays.stream(filesRaw.split("\\R|,"))
                 .map(String::trim).filter(s -> !s.isBlank()).toList();
 
-        String raw = chat.prompt(CommitService.PromptBuilder.build(
-                repo, author, files, diff.length() > 18_000 ? diff.substring(0, 18_000) : diff
-        )).call().content();
-        return raw;
+        String prompt = CommitService.buildPrompt(promptTemplates.get(CommitService.PROMPT_TEMPLATE),
+                repo, author, files, DiffCondenser.condense(diff, CommitService.MAX_DIFF_CHARS).diff());
+        return models.call("debug-raw", prompt);
     }
 
     @PostMapping(path = "/generate-commit",
@@ -80,6 +207,24 @@ public class CommitController {
         return new GenerateResponse(CommitFormatter.toConventional(cm), cm);
     }
 
+    @PostMapping(path = "/generate-commit/stream",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter generateJsonStream(@RequestBody GenerateRequest req) {
+        if (service == null) throw new IllegalStateException("Commit generation unavailable (no AI)");
+        var emitter = new SseEmitter(SSE_TIMEOUT_MS);
+        var stream = service.generateStreaming(req.repo(), req.author(), req.files(), req.diff(),
+                token -> send(emitter, "token", new Chunk(token)),
+                res -> {
+                    var cm = res.message();
+                    send(emitter, "result", new GenerateResponse(CommitFormatter.toConventional(cm), cm));
+                    emitter.complete();
+                });
+        emitter.onTimeout(stream::dispose);
+        emitter.onError(e -> stream.dispose());
+        return emitter;
+    }
+
     @PostMapping(path = "/generate-commit-text",
             consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE,
             produces = MediaType.TEXT_PLAIN_VALUE)
@@ -97,6 +242,47 @@ public class CommitController {
         return service.format(cm);
     }
 
+    @PostMapping(path = "/generate-commits",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<BatchItem> generateBatch(@RequestBody List<GenerateRequest> reqs) {
+        if (service == null) throw new IllegalStateException("Commit generation unavailable (no AI)");
+        // fan out on the shared pool, then join in input order
+        var futures = reqs.stream()
+                .map(r -> CompletableFuture.supplyAsync(
+                        () -> service.generateWithSource(r.repo(), r.author(), r.files(), r.diff()),
+                        commitBatchExecutor))
+                .toList();
+        var out = new ArrayList<BatchItem>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                var res = futures.get(i).join();
+                var cm = res.message();
+                out.add(new BatchItem(i, res.source().name().toLowerCase(Locale.ROOT),
+                        CommitFormatter.toConventional(cm), cm, null));
+            } catch (CompletionException e) {
+                var cause = e.getCause() == null ? e : e.getCause();
+                out.add(new BatchItem(i, "error", null, null, String.valueOf(cause.getMessage())));
+            }
+        }
+        return out;
+    }
+
+    // ---------- SSE helpers ----------
+
+    /** Send one named event; a vanished client is not an error worth surfacing. */
+    private static void send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // client disconnected or emitter already completed – nothing left to tell
+        }
+    }
+
     record GenerateRequest(String repo, String author, List<String> files, String diff) {}
     record GenerateResponse(String message, CommitMessage structured) {}
+    /** SSE payload for a token or a final text; JSON-wrapped so embedded newlines survive the event stream. */
+    record Chunk(String text) {}
+    /** One batch result; {@code status} is local, cache, similar, model, fallback or error. */
+    record BatchItem(int index, String status, String message, CommitMessage structured, String error) {}
 }
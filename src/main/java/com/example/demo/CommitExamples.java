@@ -0,0 +1,241 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Earlier model-generated commit messages, indexed by an embedding of the diff they were written
+ * for, so new diffs can be answered from similar ones.
+ * <p>
+ * {@link #lookup} embeds a compact summary of the diff (file names plus changed lines) and finds
+ * the {@code k} closest earlier diffs in a {@link VectorIndex}. Those at or above
+ * {@code min-similarity} become few-shot examples for the prompt; if the closest one is at or above
+ * {@code duplicate-similarity} and touched the same files, its message is reused without a model
+ * call. With {@code commit-ai.examples.dir} set, the index ({@code vectors.f32}, memory-mapped)
+ * and the messages ({@code examples.jsonl}) survive restarts. The embedding request goes through
+ * {@link ModelClient} (limiter, breaker and the {@code embed-diff} deadline). Without an
+ * {@link EmbeddingModel}, or when embedding fails, times out or the circuit is open, lookups find
+ * nothing and generation works as before. Off by default.
+ */
+@Component
+public class CommitExamples {
+
+    private static final Logger log = LoggerFactory.getLogger(CommitExamples.class);
+
+    static final int MAX_SUMMARY_CHARS = 4000;
+    private static final int EXAMPLE_SUMMARY_CHARS = 240;
+    private static final int EXAMPLE_BODY_CHARS = 200;
+
+    /** An earlier diff summary and the message generated for it. */
+    record Example(List<String> files, String summary, CommitMessage message) {}
+
+    /** One line of {@code examples.jsonl}; {@code id} is the vector's id in the index. */
+    record StoredExample(int id, List<String> files, String summary, CommitMessage message) {}
+
+    /** What the index had for a diff; {@code duplicate} is set when a stored message can be reused as is. */
+    public record Lookup(float[] vector, List<String> files, String summary, List<Example> similar,
+                         CommitMessage duplicate) {
+        static final Lookup NONE = new Lookup(null, List.of(), "", List.of(), null);
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    private final EmbeddingModel embeddings; // null when disabled
+    private final ModelClient models;
+    private final ModelMetrics metrics;
+    private final VectorIndex index;
+    private final Map<Integer, Example> examples = new ConcurrentHashMap<>();
+    private final Map<String, Counter> lookups = new HashMap<>();
+    private final Writer exampleLog; // null when in memory only
+    private final int k;
+    private final double minSimilarity;
+    private final double duplicateSimilarity;
+
+    public CommitExamples(@Autowired(required = false) EmbeddingModel embeddings, ModelClient models,
+                          ModelMetrics metrics, MeterRegistry registry,
+                          @Value("${commit-ai.examples.enabled:false}") boolean enabled,
+                          @Value("${commit-ai.examples.dir:}") String dir,
+                          @Value("${commit-ai.examples.k:3}") int k,
+                          @Value("${commit-ai.examples.min-similarity:0.8}") double minSimilarity,
+                          @Value("${commit-ai.examples.duplicate-similarity:0.97}") double duplicateSimilarity,
+                          @Value("${commit-ai.examples.lsh-tables:8}") int lshTables,
+                          @Value("${commit-ai.examples.lsh-bits:12}") int lshBits) {
+        this.embeddings = enabled ? embeddings : null;
+        this.models = models;
+        this.metrics = metrics;
+        this.k = k;
+        this.minSimilarity = minSimilarity;
+        this.duplicateSimilarity = duplicateSimilarity;
+        for (String result : List.of("duplicate", "examples", "none", "error")) {
+            lookups.put(result, Counter.builder("commit.examples.lookups").tag("result", result).register(registry));
+        }
+
+        Path home = dir.isBlank() || this.embeddings == null ? null : Path.of(dir);
+        this.index = new VectorIndex(home == null ? null : home.resolve("vectors.f32"), lshTables, lshBits, 0x5EEDL, 4096);
+        this.exampleLog = home == null ? null : open(home.resolve("examples.jsonl"));
+        Gauge.builder("commit.examples.indexed", examples, Map::size).register(registry);
+    }
+
+    public boolean enabled() {
+        return embeddings != null;
+    }
+
+    /** Similar earlier commits for a diff; {@link Lookup#NONE} when disabled or the embedding call fails in any way. */
+    public Lookup lookup(List<String> files, String diff) {
+        if (embeddings == null) return Lookup.NONE;
+        String summary = summarize(files, diff);
+        float[] vector;
+        try {
+            vector = models.call("embed-diff", () -> metrics.embed("embed-diff", summary, () -> embeddings.embed(summary)));
+        } catch (RuntimeException e) { // includes ModelTimeoutException, ModelUnavailableException and ModelBusyException
+            log.warn("Embedding the diff failed; generating without examples: {}", e.toString());
+            lookups.get("error").increment();
+            return Lookup.NONE;
+        }
+
+        List<Example> similar = new ArrayList<>(k);
+        CommitMessage duplicate = null;
+        for (VectorIndex.Hit hit : index.nearest(vector, k)) {
+            Example ex = examples.get(hit.id());
+            if (ex == null || hit.score() < minSimilarity) continue;
+            if (similar.isEmpty() && hit.score() >= duplicateSimilarity
+                    && new HashSet<>(ex.files()).equals(new HashSet<>(files))) {
+                duplicate = ex.message();
+            }
+            similar.add(ex);
+        }
+        lookups.get(duplicate != null ? "duplicate" : similar.isEmpty() ? "none" : "examples").increment();
+        return new Lookup(vector, files, summary, similar, duplicate);
+    }
+
+    /** Index a message the model generated for the diff behind {@code lookup}. */
+    public void remember(Lookup lookup, CommitMessage message) {
+        if (lookup.vector() == null || message == null) return;
+        var ex = new Example(List.copyOf(lookup.files()), lookup.summary(), message);
+        synchronized (this) {
+            int id = index.add(lookup.vector());
+            examples.put(id, ex);
+            if (exampleLog == null) return;
+            try {
+                exampleLog.write(mapper.writeValueAsString(new StoredExample(id, ex.files(), ex.summary(), message)));
+                exampleLog.write('\n');
+                exampleLog.flush();
+            } catch (IOException e) {
+                log.warn("Could not append to the commit example log: {}", e.getMessage());
+            }
+        }
+    }
+
+    public int size() {
+        return examples.size();
+    }
+
+    // ---------- prompt material ----------
+
+    /** What gets embedded: the files and the changed lines, without context lines or hunk headers. */
+    static String summarize(List<String> files, String diff) {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("files: ").append(String.join(", ", files)).append('\n');
+        if (diff == null) return sb.toString();
+        int from = 0;
+        while (from < diff.length() && sb.length() < MAX_SUMMARY_CHARS) {
+            int eol = diff.indexOf('\n', from);
+            if (eol < 0) eol = diff.length();
+            char c = from < eol ? diff.charAt(from) : ' ';
+            boolean changed = (c == '+' && !diff.startsWith("+++", from)) || (c == '-' && !diff.startsWith("---", from));
+            if (changed && !diff.substring(from + 1, eol).isBlank()) {
+                sb.append(c).append(diff, from + 1, eol).append('\n');
+            }
+            from = eol + 1;
+        }
+        if (sb.length() > MAX_SUMMARY_CHARS) sb.setLength(MAX_SUMMARY_CHARS);
+        return sb.toString();
+    }
+
+    /** Compact few-shot block: each example's change summary on one line, then its message as JSON. */
+    String render(List<Example> similar) {
+        StringBuilder out = new StringBuilder(1024);
+        for (Example ex : similar) {
+            String changes = ex.summary().replaceAll("\\s*\n\\s*", " | ").strip();
+            if (changes.length() > EXAMPLE_SUMMARY_CHARS) changes = changes.substring(0, EXAMPLE_SUMMARY_CHARS) + "…";
+            CommitMessage m = ex.message();
+            String body = m.body() != null && m.body().length() > EXAMPLE_BODY_CHARS
+                    ? m.body().substring(0, EXAMPLE_BODY_CHARS) + "…" : m.body();
+            try {
+                out.append("Changes: ").append(changes).append('\n')
+                        .append("Commit: ").append(mapper.writeValueAsString(new CommitMessage(
+                                m.type(), m.scope(), m.subject(), body, m.breakingChange(), m.issues())))
+                        .append("\n\n");
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e); // a record of strings always serialises
+            }
+        }
+        return out.toString().stripTrailing();
+    }
+
+    // ---------- persistence ----------
+
+    private Writer open(Path file) {
+        try {
+            if (Files.isRegularFile(file)) {
+                try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        if (line.isBlank()) continue;
+                        try {
+                            StoredExample s = mapper.readValue(line, StoredExample.class);
+                            if (s.id() < index.size()) examples.put(s.id(), new Example(s.files(), s.summary(), s.message()));
+                        } catch (IOException e) {
+                            log.warn("Skipping unreadable line of {}: {}", file, e.getMessage());
+                        }
+                    }
+                }
+            }
+            CommitStore.terminateLastLine(file);
+            Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            log.info("Commit examples at {}: {} indexed", file.getParent(), examples.size());
+            return out;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open commit examples in " + file.getParent(), e);
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        try {
+            if (exampleLog != null) exampleLog.close();
+        } catch (IOException e) {
+            log.warn("Could not close the commit example log: {}", e.getMessage());
+        }
+        index.close();
+    }
+}
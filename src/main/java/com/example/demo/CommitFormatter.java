@@ -1,42 +1,94 @@
 package com.example.demo;
 
+import java.util.List;
+
 public final class CommitFormatter {
     private CommitFormatter() {}
 
     public static String toConventional(CommitMessage m) {
-        String type = m.type() == null ? "chore" : m.type();
-        String scope = (m.scope() == null || m.scope().isBlank()) ? "" : "(" + m.scope().trim() + ")";
         boolean breaking = m.breakingChange() != null && !m.breakingChange().isBlank();
-        String bang = breaking ? "!" : "";
+        StringBuilder sb = new StringBuilder(256);
 
-        String header = "%s%s%s: %s".formatted(type, scope, bang, m.subject()).trim();
+        // header: type(scope)!: subject, trimmed
+        sb.append(m.type() == null ? "chore" : m.type());
+        if (m.scope() != null && !m.scope().isBlank()) {
+            sb.append('(');
+            appendTrimmed(sb, m.scope());
+            sb.append(')');
+        }
+        if (breaking) sb.append('!');
+        sb.append(": ").append(m.subject());
+        trimTrailing(sb);
+        sb.append("\n\n");
 
-        StringBuilder sb = new StringBuilder(header).append("\n\n");
         if (m.body() != null && !m.body().isBlank()) {
-            sb.append(wrap(m.body().trim(), 72)).append("\n\n");
+            String body = m.body().trim();
+            wrap(sb, body, 72);
+            sb.append("\n\n");
         }
         if (breaking) {
-            sb.append("BREAKING CHANGE: ").append(m.breakingChange().trim()).append("\n\n");
+            sb.append("BREAKING CHANGE: ");
+            appendTrimmed(sb, m.breakingChange());
+            sb.append("\n\n");
         }
         if (m.issues() != null && !m.issues().isEmpty()) {
-            sb.append(String.join(" ", m.issues())).append("\n");
+            List<String> issues = m.issues();
+            for (int i = 0; i < issues.size(); i++) {
+                if (i > 0) sb.append(' ');
+                sb.append(issues.get(i));
+            }
+            sb.append('\n');
         }
-        return sb.toString().trim();
+        return trimmed(sb);
     }
 
-    private static String wrap(String text, int width) {
-        String[] words = text.replace("\n", " ").split("\\s+");
-        StringBuilder out = new StringBuilder();
+    /**
+     * Greedy word wrap at {@code width} columns, scanning words in place.
+     * Words are runs of non-whitespace ({@code [^ \t\n\x0B\f\r]}), as the old {@code split("\\s+")} had them.
+     */
+    static void wrap(StringBuilder out, String text, int width) {
         int col = 0;
-        for (String w : words) {
-            if (col + w.length() + 1 > width) {
-                out.append("\n");
+        int i = 0, n = text.length();
+        while (i < n) {
+            while (i < n && isSpace(text.charAt(i))) i++;
+            if (i == n) break;
+            int start = i;
+            while (i < n && !isSpace(text.charAt(i))) i++;
+            int len = i - start;
+
+            if (col + len + 1 > width) {
+                out.append('\n');
                 col = 0;
             }
-            if (col > 0) { out.append(" "); col++; }
-            out.append(w);
-            col += w.length();
+            if (col > 0) { out.append(' '); col++; }
+            out.append(text, start, i);
+            col += len;
         }
-        return out.toString();
+    }
+
+    // ---------- small helpers ----------
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static void appendTrimmed(StringBuilder sb, String s) {
+        int from = 0, to = s.length();
+        while (from < to && s.charAt(from) <= ' ') from++;
+        while (to > from && s.charAt(to - 1) <= ' ') to--;
+        sb.append(s, from, to);
+    }
+
+    private static void trimTrailing(StringBuilder sb) {
+        int len = sb.length();
+        while (len > 0 && sb.charAt(len - 1) <= ' ') len--;
+        sb.setLength(len);
+    }
+
+    private static String trimmed(StringBuilder sb) {
+        int from = 0, to = sb.length();
+        while (from < to && sb.charAt(from) <= ' ') from++;
+        while (to > from && sb.charAt(to - 1) <= ' ') to--;
+        return sb.substring(from, to);
     }
 }
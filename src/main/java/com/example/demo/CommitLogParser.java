@@ -0,0 +1,222 @@
+package com.example.demo;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming parser for raw {@code git log --format='%B%n----8<----'} output.
+ * Reads line by line and emits each commit as soon as its delimiter arrives,
+ * so memory stays bounded by the largest single commit. Lines end at any
+ * {@code \R} break (including {@code \f}, {@code \u000B}, {@code \u0085},
+ * {@code \u2028} and {@code \u2029}), as with the earlier {@code split("\\R")}.
+ * <p>
+ * Trailers and issue references are found with hand-rolled scanners; only the
+ * header still goes through a (precompiled) regex, once per commit.
+ */
+public final class CommitLogParser {
+    private CommitLogParser() {}
+
+    static final String DELIMITER = "----8<----";
+    private static final String BREAKING_PREFIX = "BREAKING CHANGE:";
+
+    // Matches header: type(scope?): subject
+    private static final Pattern HEADER = Pattern.compile("^([a-z]+)(?:\\(([^)]+)\\))?!?:\\s*(.+)$");
+
+    /** Read commits from {@code in}, handing each one to {@code sink} as soon as it is complete. */
+    public static void parse(Reader in, Consumer<CommitMessage> sink) throws IOException {
+        Lines lines = new Lines(in);
+        List<String> block = new ArrayList<>();
+        StringBuilder body = new StringBuilder(); // reused across commits
+        String line;
+        while ((line = lines.next()) != null) {
+            if (isDelimiter(line)) {
+                emit(block, body, sink);
+                block.clear();
+            } else {
+                block.add(line);
+            }
+        }
+        emit(block, body, sink);
+    }
+
+    // ---------- block handling ----------
+
+    private static void emit(List<String> block, StringBuilder body, Consumer<CommitMessage> sink) {
+        // trim surrounding blank lines, as the old split-then-strip did
+        int from = 0, to = block.size();
+        while (from < to && block.get(from).isBlank()) from++;
+        while (to > from && block.get(to - 1).isBlank()) to--;
+        if (from == to) return; // blank block between delimiters – nothing to report
+
+        block.set(from, block.get(from).stripLeading());
+        block.set(to - 1, block.get(to - 1).stripTrailing());
+        body.setLength(0);
+        sink.accept(parseBlock(block, from, to, body));
+    }
+
+    private static CommitMessage parseBlock(List<String> lines, int from, int to, StringBuilder body) {
+        String type, scope = null, subject, breaking = null;
+
+        // header = first line (blank lines were trimmed already)
+        String header = lines.get(from).trim();
+        Matcher m = HEADER.matcher(header);
+        if (m.matches()) {
+            type = m.group(1);
+            scope = m.group(2);
+            subject = m.group(3);
+        } else {
+            // Not conventional? Treat as subject-only
+            type = "chore";
+            subject = header;
+        }
+
+        // rest = body + trailers; issues are collected line by line as the body grows
+        Set<String> issues = new LinkedHashSet<>();
+        for (int i = from; i < to; i++) {
+            String line = lines.get(i);
+            if (line.startsWith("#")) continue; // skip comments
+            String br = breakingTrailer(line);
+            if (br != null) {
+                breaking = br;
+            } else {
+                body.append(line).append('\n');
+                collectIssues(line, issues);
+            }
+        }
+
+        String bodyStr = strippedOrNull(body);
+        return new CommitMessage(
+                type,
+                scope,
+                PrDescriptionService.stripWrappingQuotes(subject),
+                bodyStr,
+                breaking,
+                new ArrayList<>(issues));
+    }
+
+    // ---------- scanners ----------
+
+    /**
+     * Value of a {@code BREAKING CHANGE:} trailer (ASCII case-insensitive), trimmed;
+     * {@code null} when the line is not one. Lines hold no line breaks, so this is
+     * {@code ^BREAKING CHANGE:\s*(.+)$} plus {@code trim()}.
+     */
+    static String breakingTrailer(String line) {
+        int n = BREAKING_PREFIX.length();
+        if (line.length() <= n || !asciiStartsWithIgnoreCase(line, BREAKING_PREFIX)) return null;
+        return line.substring(n).trim();
+    }
+
+    /** Add every {@code #123} and {@code ABC-123} reference in {@code s}, left to right. */
+    static void collectIssues(CharSequence s, Set<String> out) {
+        int len = s.length();
+        int i = 0;
+        while (i < len) {
+            char c = s.charAt(i);
+            if (c == '#') {
+                int end = digitsEnd(s, i + 1);
+                if (end > i + 1) {
+                    out.add(s.subSequence(i, end).toString());
+                    i = end;
+                    continue;
+                }
+                i++;
+            } else if (c >= 'A' && c <= 'Z') {
+                int j = i + 1;
+                while (j < len && s.charAt(j) >= 'A' && s.charAt(j) <= 'Z') j++;
+                if (j < len && s.charAt(j) == '-') {
+                    int end = digitsEnd(s, j + 1);
+                    if (end > j + 1) {
+                        out.add(s.subSequence(i, end).toString());
+                        i = end;
+                        continue;
+                    }
+                }
+                i = j; // no later start inside this run of capitals can match either
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static int digitsEnd(CharSequence s, int i) {
+        while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') i++;
+        return i;
+    }
+
+    private static boolean asciiStartsWithIgnoreCase(String s, String upperPrefix) {
+        for (int i = 0; i < upperPrefix.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 'a' && c <= 'z') c = (char) (c - ('a' - 'A'));
+            if (c != upperPrefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /** {@code body.toString().strip()}, or null when blank – without the intermediate copy. */
+    private static String strippedOrNull(StringBuilder body) {
+        int start = 0, end = body.length();
+        while (start < end && Character.isWhitespace(body.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(body.charAt(end - 1))) end--;
+        return start == end ? null : body.substring(start, end);
+    }
+
+    /** A delimiter line is the marker followed by nothing but spaces and tabs. */
+    private static boolean isDelimiter(String line) {
+        if (!line.startsWith(DELIMITER)) return false;
+        for (int i = DELIMITER.length(); i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c != ' ' && c != '\t') return false;
+        }
+        return true;
+    }
+
+    /** Lines of {@code in}, split on every {@code \R} break; {@code \r\n} counts as one. */
+    private static final class Lines {
+        private final Reader in;
+        private final char[] buf = new char[8192];
+        private final StringBuilder line = new StringBuilder(128);
+        private int pos, len;
+        private boolean skipLf; // the last line ended in \r
+
+        Lines(Reader in) {
+            this.in = in;
+        }
+
+        /** The next line without its break, or null at the end of input. */
+        String next() throws IOException {
+            line.setLength(0);
+            boolean any = false;
+            while (true) {
+                if (pos == len) {
+                    len = Math.max(0, in.read(buf, 0, buf.length));
+                    pos = 0;
+                    if (len == 0) return any ? line.toString() : null;
+                }
+                char c = buf[pos++];
+                if (skipLf) {
+                    skipLf = false;
+                    if (c == '\n') continue;
+                }
+                any = true;
+                switch (c) {
+                    case '\r' -> {
+                        skipLf = true;
+                        return line.toString();
+                    }
+                    case '\n', '\u000B', '\f', '\u0085', '\u2028', '\u2029' -> {
+                        return line.toString();
+                    }
+                    default -> line.append(c);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Gets a {@link CommitMessage} out of a model reply in one pass, whatever surrounds the JSON
+ * (code fences, "Sure! Here is…", trailing remarks).
+ * <p>
+ * A linear scan finds the outermost balanced {@code {…}} spans, skipping braces inside JSON
+ * strings. Each span is then read token by token straight into the message fields, so the reply
+ * is never parsed twice and text after the object is never looked at; since spans don't overlap,
+ * the total cost stays linear in the reply. A span only counts if its {@code type} is a known
+ * {@link CommitType} and its subject is non-blank and at most {@value #MAX_SUBJECT_CHARS} characters;
+ * otherwise the next span is tried.
+ */
+final class CommitReplyParser {
+
+    /** commitlint's default header limit; longer "subjects" are usually the body in the wrong field. */
+    static final int MAX_SUBJECT_CHARS = 100;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    record Parsed(CommitMessage message, ModelMetrics.ParseOutcome outcome) {}
+
+    private static final Parsed FAILED = new Parsed(null, ModelMetrics.ParseOutcome.FAILED);
+    private static final Parsed INVALID = new Parsed(null, ModelMetrics.ParseOutcome.INVALID);
+
+    /** Thrown while reading a span that is JSON but not a usable commit message. */
+    private static final class Invalid extends Exception {
+        Invalid() { super(null, null, false, false); }
+    }
+
+    private static final Invalid INVALID_FIELD = new Invalid();
+
+    private CommitReplyParser() {}
+
+    static Parsed parse(String raw) {
+        if (raw == null || raw.indexOf('{') < 0) return FAILED;
+        char[] buf = raw.toCharArray();
+        boolean sawObject = false;
+        for (long span : objectSpans(buf)) {
+            int from = (int) (span >>> 32), to = (int) span;
+            try {
+                CommitMessage message = read(buf, from, to - from);
+                boolean whole = isBlank(buf, 0, from) && isBlank(buf, to, buf.length);
+                return new Parsed(message, whole ? ModelMetrics.ParseOutcome.DIRECT : ModelMetrics.ParseOutcome.RESCUED);
+            } catch (Invalid e) {
+                sawObject = true;
+            } catch (IOException notJson) {
+                // prose in braces; try the next span
+            }
+        }
+        return sawObject ? INVALID : FAILED;
+    }
+
+    // ---------- locating ----------
+
+    /**
+     * Outermost balanced {@code {…}} spans in order, packed as {@code from << 32 | to}. An opening
+     * brace that is never closed (e.g. a stray one in leading prose, or a reply cut off at the
+     * token limit) does not hide the balanced spans after it.
+     */
+    static List<Long> objectSpans(char[] s) {
+        List<Long> spans = new ArrayList<>(2);
+        int[] open = new int[16];
+        int depth = 0;
+        boolean inString = false;
+        for (int i = 0; i < s.length; i++) {
+            char c = s[i];
+            if (inString) {
+                if (c == '\\') i++;
+                else if (c == '"') inString = false;
+            } else if (c == '"') {
+                inString = depth > 0; // quotes in prose outside any braces mean nothing
+            } else if (c == '{') {
+                if (depth == open.length) open = Arrays.copyOf(open, depth * 2);
+                open[depth++] = i;
+            } else if (c == '}' && depth > 0) {
+                int from = open[--depth];
+                // spans inside this one were only candidates until now
+                while (!spans.isEmpty() && (int) (spans.get(spans.size() - 1) >>> 32) > from) {
+                    spans.remove(spans.size() - 1);
+                }
+                spans.add((long) from << 32 | (i + 1));
+            }
+        }
+        return spans;
+    }
+
+    // ---------- reading ----------
+
+    private static CommitMessage read(char[] buf, int offset, int len) throws IOException, Invalid {
+        String type = null, scope = null, subject = null, body = null, breaking = null;
+        List<String> issues = null;
+        try (JsonParser p = JSON.createParser(buf, offset, len)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw INVALID_FIELD;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                switch (field) {
+                    case "type" -> {
+                        CommitType t = CommitType.of(text(p, value));
+                        if (t == null || t == CommitType.OTHER) throw INVALID_FIELD;
+                        type = t.label();
+                    }
+                    case "scope" -> scope = text(p, value);
+                    case "subject" -> {
+                        subject = text(p, value);
+                        if (subject == null || subject.isBlank() || subject.strip().length() > MAX_SUBJECT_CHARS) {
+                            throw INVALID_FIELD;
+                        }
+                    }
+                    case "body" -> body = text(p, value);
+                    case "breakingChange" -> breaking = text(p, value);
+                    case "issues" -> issues = issues(p, value);
+                    default -> p.skipChildren();
+                }
+            }
+        }
+        if (type == null || subject == null) throw INVALID_FIELD;
+        return new CommitMessage(type, scope, subject, body, breaking, issues);
+    }
+
+    /** A scalar as text, as Jackson would bind it to a {@code String}; objects and arrays are invalid. */
+    private static String text(JsonParser p, JsonToken value) throws IOException, Invalid {
+        if (value == JsonToken.VALUE_NULL) return null;
+        if (value == null || !value.isScalarValue()) throw INVALID_FIELD;
+        return p.getText();
+    }
+
+    /** An array of strings; a lone string is taken as a one-element list. */
+    private static List<String> issues(JsonParser p, JsonToken value) throws IOException, Invalid {
+        if (value == JsonToken.VALUE_NULL) return null;
+        if (value != JsonToken.START_ARRAY) {
+            String one = text(p, value);
+            return one.isBlank() ? List.of() : List.of(one);
+        }
+        List<String> out = new ArrayList<>();
+        for (JsonToken t = p.nextToken(); t != JsonToken.END_ARRAY; t = p.nextToken()) {
+            String issue = text(p, t);
+            if (issue != null) out.add(issue);
+        }
+        return out;
+    }
+
+    private static boolean isBlank(char[] s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s[i] > ' ') return false;
+        }
+        return true;
+    }
+}
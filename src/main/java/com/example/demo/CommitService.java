@@ -1,61 +1,209 @@
 package com.example.demo;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
 
+import java.util.EnumMap;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @ConditionalOnBean(ChatClient.class)
 @Service
 public class CommitService {
 
-    private static final int MAX_DIFF_CHARS = 18_000;
-    private static final Pattern JSON_BLOCK = Pattern.compile("\\{.*?\\}", Pattern.DOTALL);
+    private static final Logger log = LoggerFactory.getLogger(CommitService.class);
 
-    private final ChatClient chat;
-    private final ObjectMapper mapper;
+    static final int MAX_DIFF_CHARS = 18_000;
 
-    public CommitService(ChatClient chat) {
-        this.chat = chat;
-        this.mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final ModelClient models;
+    private final CommitCache cache;
+    private final CommitExamples examples;
+    private final String modelOptions;
+    private final ModelCallLimiter limiter;
+    private final ModelMetrics metrics;
+    private final PromptTemplates templates;
+    private final boolean classifierEnabled;
+    private final Map<Source, Counter> bySource = new EnumMap<>(Source.class);
+    private final SingleFlight<String, Result> inFlight;
+
+    public CommitService(ModelClient models, CommitCache cache, CommitExamples examples, ModelCallLimiter limiter,
+                         ModelMetrics metrics, PromptTemplates templates, MeterRegistry registry,
+                         @Value("${spring.ai.openai.chat.options.model:}") String model,
+                         @Value("${spring.ai.openai.chat.options.temperature:}") String temperature,
+                         @Value("${commit-ai.classifier.enabled:true}") boolean classifierEnabled) {
+        this.models = models;
+        this.cache = cache;
+        this.examples = examples;
+        this.limiter = limiter;
+        this.metrics = metrics;
+        this.templates = templates;
+        this.inFlight = new SingleFlight<>(() -> metrics.coalesced("generate-commit"));
+        this.classifierEnabled = classifierEnabled;
+        for (Source src : Source.values()) {
+            bySource.put(src, Counter.builder("commit.generate.requests")
+                    .tag("source", src.name().toLowerCase(Locale.ROOT)).register(registry));
+        }
+        this.modelOptions = "model=" + model + ";temperature=" + temperature;
     }
 
+    /** Where a generated message came from; SIMILAR is a near-identical earlier diff's message (see {@link CommitExamples}). */
+    public enum Source { LOCAL, CACHE, SIMILAR, MODEL, FALLBACK }
+
+    public record Result(CommitMessage message, Source source) {}
+
     public CommitMessage generate(String repo, String author, List<String> files, String diff) {
-        String truncated = (diff == null) ? "" :
-                (diff.length() > MAX_DIFF_CHARS ? diff.substring(0, MAX_DIFF_CHARS) : diff);
-
-        String prompt = PromptBuilder.build(
-                repo == null ? "repo" : repo,
-                author == null ? "dev" : author,
-                files == null ? List.of() : files,
-                truncated
-        );
+        return generateWithSource(repo, author, files, diff).message();
+    }
+
+    public Result generateWithSource(String repo, String author, List<String> files, String diff) {
+        CommitMessage local = classify(files, diff);
+        if (local != null) return count(new Result(local, Source.LOCAL));
+
+        Prepared req = prepare(repo, author, files, diff);
+        CommitMessage cached = cache.get(req.key());
+        if (cached != null) return count(new Result(cached, Source.CACHE));
+
+        // identical requests arriving while this one is with the model share its answer
+        return count(inFlight.run(req.key(), () -> callModel(req)));
+    }
 
+    private Result callModel(Prepared req) {
+        CommitExamples.Lookup similar = examples.lookup(req.files(), req.diff());
+        if (similar.duplicate() != null) return reuse(req, similar.duplicate());
         String raw;
         try {
-            raw = chat.prompt(prompt).call().content();
+            raw = models.call("generate-commit", promptFor(req, similar));
+        } catch (ModelBusyException busy) {
+            throw busy; // saturated: let the caller see 429 rather than a silent fallback
+        } catch (ModelUnavailableException open) {
+            return new Result(fallback(req.files()), Source.FALLBACK); // circuit open: no call was made
         } catch (Exception e) {
-            e.printStackTrace();
-            return fallback(files);
+            log.warn("Model call failed; using fallback commit message", e);
+            return new Result(fallback(req.files()), Source.FALLBACK);
         }
+        return learn(similar, finish(req, raw));
+    }
 
-        try {
-            return mapper.readValue(raw, CommitMessage.class);
-        } catch (Exception parse1) {
-            var m = JSON_BLOCK.matcher(raw);
-            if (m.find()) {
-                try {
-                    return mapper.readValue(m.group(), CommitMessage.class);
-                } catch (Exception ignore) {
-                }
-            }
-            System.err.println("[commit-ai] parse failed; raw output was:\n" + raw);
-            return fallback(files);
+    /**
+     * Streaming variant of {@link #generateWithSource}: model tokens go to {@code onToken} as they
+     * arrive, and the validated (or fallback) result goes to {@code onComplete} once the stream ends.
+     * Cache hits complete immediately without tokens. Dispose the returned handle to cancel.
+     */
+    public Disposable generateStreaming(String repo, String author, List<String> files, String diff,
+                                        Consumer<String> onToken, Consumer<Result> onComplete) {
+        CommitMessage local = classify(files, diff);
+        if (local != null) {
+            onComplete.accept(count(new Result(local, Source.LOCAL)));
+            return Disposables.disposed();
+        }
+        Prepared req = prepare(repo, author, files, diff);
+        CommitMessage cached = cache.get(req.key());
+        if (cached != null) {
+            onComplete.accept(count(new Result(cached, Source.CACHE)));
+            return Disposables.disposed();
         }
+        CommitExamples.Lookup similar = examples.lookup(req.files(), req.diff());
+        if (similar.duplicate() != null) {
+            onComplete.accept(count(reuse(req, similar.duplicate())));
+            return Disposables.disposed();
+        }
+
+        String prompt = promptFor(req, similar); // before acquire: nothing would release the slot if this threw
+        StringBuilder raw = new StringBuilder();
+        limiter.acquire(); // held until the stream terminates
+        return models.stream("generate-commit-stream", prompt)
+                .doFinally(signal -> limiter.release())
+                .subscribe(
+                        token -> { raw.append(token); onToken.accept(token); },
+                        e -> {
+                            if (!(e instanceof ModelUnavailableException)) {
+                                log.warn("Model stream failed; using fallback commit message", e);
+                            }
+                            onComplete.accept(count(new Result(fallback(req.files()), Source.FALLBACK)));
+                        },
+                        () -> onComplete.accept(count(learn(similar, finish(req, raw.toString())))));
+    }
+
+    // ---------- request preparation & result handling ----------
+
+    private CommitMessage classify(List<String> files, String diff) {
+        return classifierEnabled ? CommitClassifier.classify(files, diff) : null;
+    }
+
+    /** Tally where results came from; local / total is the classifier's short-circuit rate. */
+    private Result count(Result r) {
+        bySource.get(r.source()).increment();
+        return r;
+    }
+
+    private record Prepared(String key, String repo, String author, List<String> files, String diff) {}
+
+    private Prepared prepare(String repo, String author, List<String> files, String diff) {
+        DiffCondenser.Condensed condensed = DiffCondenser.condense(diff, MAX_DIFF_CHARS);
+        metrics.diffPrompt(condensed.cut());
+        String truncated = condensed.diff();
+        repo = repo == null ? "repo" : repo;
+        author = author == null ? "dev" : author;
+        files = files == null ? List.of() : files;
+
+        // author only appears in the prompt as context, so it is left out of the key; the versions
+        // of both templates a reply may come from are in it, so editing either one retires answers
+        // cached for the old text
+        String key = CommitCache.key(repo, String.join("\n", files), truncated,
+                templates.get(PROMPT_TEMPLATE).version(), templates.get(EXAMPLES_TEMPLATE).version(), modelOptions);
+        return new Prepared(key, repo, author, files, truncated);
+    }
+
+    /** The few-shot prompt when similar earlier commits were found, otherwise the full rules prompt. */
+    private String promptFor(Prepared req, CommitExamples.Lookup similar) {
+        if (similar.similar().isEmpty()) {
+            return buildPrompt(templates.get(PROMPT_TEMPLATE), req.repo(), req.author(), req.files(), req.diff());
+        }
+        return templates.get(EXAMPLES_TEMPLATE).render(Map.of(
+                "examples", examples.render(similar.similar()),
+                "repo", req.repo(),
+                "author", req.author(),
+                "files", String.join("\n", req.files()),
+                "diff", req.diff()));
+    }
+
+    private Result reuse(Prepared req, CommitMessage earlier) {
+        cache.put(req.key(), earlier);
+        return new Result(earlier, Source.SIMILAR);
+    }
+
+    /** Index what the model wrote so later, similar diffs can use it. */
+    private Result learn(CommitExamples.Lookup similar, Result r) {
+        if (r.source() == Source.MODEL) examples.remember(similar, r.message());
+        return r;
+    }
+
+    private Result finish(Prepared req, String raw) {
+        CommitMessage parsed = parse(raw);
+        if (parsed == null) {
+            log.warn("Model reply is not a commit message; using fallback ({} chars)", raw == null ? 0 : raw.length());
+            log.debug("Unparseable model reply:\n{}", raw);
+            return new Result(fallback(req.files()), Source.FALLBACK);
+        }
+        cache.put(req.key(), parsed);
+        return new Result(parsed, Source.MODEL);
+    }
+
+    /** The commit message in the model output (see {@link CommitReplyParser}); null when there is no valid one. */
+    CommitMessage parse(String raw) {
+        CommitReplyParser.Parsed parsed = CommitReplyParser.parse(raw);
+        metrics.parseResult(parsed.outcome());
+        return parsed.message();
     }
 
     public String format(CommitMessage cm) {
@@ -97,42 +245,19 @@ public class CommitService {
         return sb.toString();
     }
 
-    static final class PromptBuilder {
-        static String build(String repo, String author, List<String> files, String diff) {
-            return """
-SYSTEM:
-You are a senior software engineer generating Conventional Commit messages from code diffs.
-
-Format output as ONLY valid JSON matching:
-{
- "type": "feat|fix|docs|style|refactor|test|perf|build|ci|chore|revert",
- "scope": string|null,
- "subject": string,
- "body": string|null,
- "breakingChange": string|null,
- "issues": string[]
-}
+    // ---------- prompt ----------
 
-Rules:
-- Read the diff carefully — summarize WHAT was changed and WHY, not just file names.
-- Mention new methods, fields, refactorings, bug fixes, etc., in the subject/body.
-- Choose the type according to the nature of the change (e.g., "feat" for new methods, "fix" for bug fixes, "refactor" for code restructuring, "chore" for non-functional).
-- Set a concrete scope based on the most relevant file path or module (e.g., "service", "controller").
-- Use the body to briefly describe details from the diff (e.g., "Added getter for 'name' field").
-- Only use a generic description if the diff is empty.
-
-USER:
-Repository: %s
-Author: %s
-Changed files:
-%s
-
-Diff (truncated if large):
-%s
-
-Output ONLY the JSON object. No code fences, no extra text.
-""".formatted(repo, author, String.join("\n", files), diff);
-        }
+    static final String PROMPT_TEMPLATE = "commit-message";
+    static final String EXAMPLES_TEMPLATE = "commit-message-examples";
+
+    /** Fill {@code prompts/commit-message.st}; shared with {@code /debug-generate-raw}. */
+    static String buildPrompt(PromptTemplates.Template template, String repo, String author,
+                              List<String> files, String diff) {
+        return template.render(Map.of(
+                "repo", repo,
+                "author", author,
+                "files", String.join("\n", files),
+                "diff", diff));
     }
 
 }
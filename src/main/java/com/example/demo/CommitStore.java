@@ -0,0 +1,337 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Parsed commit messages keyed by SHA, plus which SHAs belong to which PR, so repeat runs on a
+ * PR only have to send and parse the commits pushed since the last run.
+ * <p>
+ * With {@code commit-ai.store.dir} set, both live in append-only JSON-lines files in that
+ * directory ({@code commits.jsonl}, {@code prs.jsonl}) that are replayed on startup; a torn last
+ * line from a crash is skipped. Without it the store is in memory only. Once the files hold more
+ * than twice the live records (plus {@value #COMPACT_SLACK} lines), and on startup whenever they
+ * hold any dead ones, both are rewritten with just the live state, so they stay bounded too.
+ * <p>
+ * At most {@code commit-ai.store.max-prs} PRs are kept, least recently used evicted first, and a
+ * commit is kept only while some PR lists it, so the heap stays bounded. An evicted PR simply has
+ * no known commits: CI sends them all again, as for a new PR.
+ */
+@Component
+public class CommitStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CommitStore.class);
+
+    /** One line of {@code commits.jsonl}. */
+    record StoredCommit(String sha, CommitMessage message) {}
+
+    /** One line of {@code prs.jsonl}: SHAs to put in front of the PR's list, newest first, or a reset. */
+    record PrBatch(String pr, List<String> shas, boolean reset) {}
+
+    /** Dead lines tolerated before a compaction while running, so small stores don't rewrite on every eviction. */
+    static final int COMPACT_SLACK = 1024;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Path dir;
+    private final int maxPrs;
+    private final Map<String, Stored> commits = new HashMap<>();
+    private final Map<String, PrIndex> prs = new LinkedHashMap<>(16, 0.75f, true); // access order
+    private Writer commitLog, prLog;
+    private Path commitFile, prFile;
+    private long logged; // lines in both files, live or not
+    private int batches; // live PR batches, i.e. the lines prs.jsonl needs
+
+    /** A commit and how many PRs list it. */
+    private static final class Stored {
+        final CommitMessage message;
+        int prs;
+
+        Stored(CommitMessage message) { this.message = message; }
+    }
+
+    /** A PR's SHAs as the batches they arrived in, oldest batch first, so appending costs O(batch). */
+    private static final class PrIndex {
+        final List<List<String>> batches = new ArrayList<>();
+        final Set<String> shas = new HashSet<>();
+
+        void forEachNewestFirst(Consumer<String> action) {
+            for (int b = batches.size() - 1; b >= 0; b--) batches.get(b).forEach(action);
+        }
+    }
+
+    public CommitStore(@Value("${commit-ai.store.dir:}") String dir,
+                       @Value("${commit-ai.store.max-prs:10000}") int maxPrs, MeterRegistry registry) {
+        this.dir = dir.isBlank() ? null : Path.of(dir);
+        this.maxPrs = maxPrs;
+        registry.gauge("commit.store.commits", this, s -> s.commitCount());
+        registry.gauge("commit.store.prs", this, s -> s.prCount());
+        if (this.dir != null) open();
+    }
+
+    /** The stored message for {@code sha}, whichever PR it came with; {@code null} if unknown. */
+    public synchronized CommitMessage get(String sha) {
+        Stored c = commits.get(sha);
+        return c == null ? null : c.message;
+    }
+
+    /** SHAs recorded for {@code pr}, newest first. */
+    public synchronized List<String> shas(String pr) {
+        PrIndex index = prs.get(pr);
+        if (index == null) return List.of();
+        List<String> out = new ArrayList<>(index.shas.size());
+        index.forEachNewestFirst(out::add);
+        return out;
+    }
+
+    /**
+     * Record {@code newCommits} (newest first) as the latest commits of {@code pr}. SHAs the PR
+     * already lists are ignored, so re-sending a batch is harmless.
+     */
+    public synchronized void append(String pr, Map<String, CommitMessage> newCommits) {
+        PrIndex index = prs.get(pr);
+        var fresh = new LinkedHashSet<String>();
+        for (String sha : newCommits.keySet()) {
+            if (index == null || !index.shas.contains(sha)) fresh.add(sha);
+        }
+        if (fresh.isEmpty()) return;
+
+        for (String sha : fresh) {
+            CommitMessage message = newCommits.get(sha);
+            if (!commits.containsKey(sha)) {
+                commits.put(sha, new Stored(message));
+                write(commitLog, new StoredCommit(sha, message));
+            }
+        }
+        List<String> shas = List.copyOf(fresh);
+        apply(new PrBatch(pr, shas, false), true);
+        write(prLog, new PrBatch(pr, shas, false));
+        evictBeyondLimit(true);
+        flush();
+        compactIfWasteful();
+    }
+
+    /** Forget which commits belong to {@code pr} (e.g. after a force-push), and commits no other PR lists. */
+    public synchronized void reset(String pr) {
+        PrIndex index = prs.remove(pr);
+        if (index == null) return;
+        release(index, true);
+        write(prLog, new PrBatch(pr, List.of(), true));
+        flush();
+        compactIfWasteful();
+    }
+
+    /** Hand the PR's commits to {@code sink}, newest first. */
+    public synchronized void forEach(String pr, Consumer<CommitMessage> sink) {
+        PrIndex index = prs.get(pr);
+        if (index == null) return;
+        index.forEachNewestFirst(sha -> {
+            Stored c = commits.get(sha);
+            if (c != null) sink.accept(c.message);
+        });
+    }
+
+    public synchronized int commitCount() { return commits.size(); }
+
+    public synchronized int prCount() { return prs.size(); }
+
+    // ---------- persistence ----------
+
+    /** {@code drop}: remove commits whose last PR let go of them (replay prunes once at the end instead). */
+    private void apply(PrBatch batch, boolean drop) {
+        if (batch.reset()) {
+            PrIndex index = prs.remove(batch.pr());
+            if (index != null) release(index, drop);
+            return;
+        }
+        PrIndex index = prs.computeIfAbsent(batch.pr(), pr -> new PrIndex());
+        List<String> fresh = new ArrayList<>(batch.shas().size());
+        for (String sha : batch.shas()) {
+            if (!index.shas.add(sha)) continue;
+            fresh.add(sha);
+            Stored c = commits.get(sha);
+            if (c != null) c.prs++;
+        }
+        if (!fresh.isEmpty()) {
+            index.batches.add(fresh);
+            batches++;
+        }
+    }
+
+    /** Stop counting {@code index}'s commits as listed, dropping the ones nothing else lists if {@code drop}. */
+    private void release(PrIndex index, boolean drop) {
+        batches -= index.batches.size();
+        for (String sha : index.shas) {
+            Stored c = commits.get(sha);
+            if (c != null && --c.prs <= 0 && drop) commits.remove(sha);
+        }
+    }
+
+    /** Evict least recently used PRs; logged as resets, so a restart comes back to the same PRs. */
+    private void evictBeyondLimit(boolean drop) {
+        Iterator<Map.Entry<String, PrIndex>> eldest = prs.entrySet().iterator();
+        while (prs.size() > maxPrs && eldest.hasNext()) {
+            var e = eldest.next();
+            eldest.remove();
+            release(e.getValue(), drop);
+            write(prLog, new PrBatch(e.getKey(), List.of(), true));
+            log.debug("Evicted PR {} from the commit store ({} PRs kept)", e.getKey(), maxPrs);
+        }
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(dir);
+            commitFile = dir.resolve("commits.jsonl");
+            prFile = dir.resolve("prs.jsonl");
+            replay(commitFile, StoredCommit.class, c -> commits.put(c.sha(), new Stored(c.message())));
+            replay(prFile, PrBatch.class, batch -> apply(batch, false));
+            evictBeyondLimit(false); // only does anything if max-prs was lowered
+            commits.values().removeIf(c -> c.prs == 0); // left behind by resets and evictions
+            if (logged > live()) {
+                compact();
+            } else {
+                openLogs();
+            }
+            log.info("Commit store at {}: {} commits, {} PRs", dir, commits.size(), prs.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open commit store in " + dir, e);
+        }
+    }
+
+    private void openLogs() throws IOException {
+        terminateLastLine(commitFile);
+        terminateLastLine(prFile);
+        commitLog = Files.newBufferedWriter(commitFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        prLog = Files.newBufferedWriter(prFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /** Lines both files need for the current state. */
+    private long live() {
+        return (long) commits.size() + batches;
+    }
+
+    private void compactIfWasteful() {
+        if (dir == null || logged <= 2 * live() + COMPACT_SLACK) return;
+        try {
+            commitLog.close();
+            prLog.close();
+            compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact commit store in " + dir, e);
+        }
+    }
+
+    /**
+     * Rewrite both files with the live state only, each through a temp file and an atomic rename, so
+     * a crash leaves either the old file or the new one. PRs go out least recently used first, which
+     * is the order replay restores.
+     */
+    private void compact() throws IOException {
+        long before = logged;
+        rewrite(commitFile, out -> commits.forEach((sha, c) -> write(out, new StoredCommit(sha, c.message))));
+        rewrite(prFile, out -> prs.forEach((pr, index) ->
+                index.batches.forEach(batch -> write(out, new PrBatch(pr, batch, false)))));
+        logged = live();
+        openLogs();
+        log.info("Compacted commit store in {}: {} lines to {}", dir, before, logged);
+    }
+
+    private void rewrite(Path file, Consumer<Writer> content) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            content.accept(out);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private <T> void replay(Path file, Class<T> type, Consumer<T> apply) throws IOException {
+        if (!Files.isRegularFile(file)) return;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+                logged++;
+                try {
+                    apply.accept(mapper.readValue(line, type));
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable line {} of {}: {}", lineNo, file, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** After a crash mid-write, start appending on a fresh line rather than after the torn one. */
+    static void terminateLastLine(Path file) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) == 0) return;
+        try (var ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var last = ByteBuffer.allocate(1);
+            ch.read(last, ch.size() - 1);
+            if (last.get(0) != '\n') ch.write(ByteBuffer.wrap(new byte[] { '\n' }), ch.size());
+        }
+    }
+
+    private void write(Writer out, Object record) {
+        if (out == null) return;
+        try {
+            out.write(mapper.writeValueAsString(record));
+            out.write('\n');
+            logged++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to commit store in " + dir, e);
+        }
+    }
+
+    private void flush() {
+        if (dir == null) return;
+        try {
+            commitLog.flush();
+            prLog.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to commit store in " + dir, e);
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (dir == null) return;
+        try {
+            commitLog.close();
+            prLog.close();
+        } catch (IOException e) {
+            log.warn("Could not close commit store in {}: {}", dir, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo;
+
+import java.util.Locale;
+
+/**
+ * Conventional Commit types, in the order PR descriptions list them.
+ * {@code OTHER} collects commits without a type.
+ */
+public enum CommitType {
+    FEAT(true), FIX(true), PERF(true), REFACTOR(true),
+    DOCS(false), TEST(false), BUILD(false), CI(false), CHORE(false), STYLE(false), REVERT(false),
+    OTHER(false);
+
+    private static final CommitType[] VALUES = values();
+
+    private final String label;
+    private final boolean titleWorthy;
+
+    CommitType(boolean titleWorthy) {
+        this.label = name().toLowerCase(Locale.ROOT);
+        this.titleWorthy = titleWorthy;
+    }
+
+    /** Lower-case name as it appears in commit headers. */
+    public String label() { return label; }
+
+    /** Whether a commit of this type may lend its subject to the PR title. */
+    public boolean titleWorthy() { return titleWorthy; }
+
+    /** Case-insensitive lookup without allocating; {@code null} for unknown types. */
+    public static CommitType of(String type) {
+        if (type == null) return null;
+        for (CommitType t : VALUES) {
+            if (t.label.length() == type.length() && asciiEqualsIgnoreCase(t.label, type)) return t;
+        }
+        return null;
+    }
+
+    private static boolean asciiEqualsIgnoreCase(String lower, String s) {
+        for (int i = 0; i < lower.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 'A' && c <= 'Z') c = (char) (c + ('a' - 'A'));
+            if (c != lower.charAt(i)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shrinks a unified diff to a character budget before it goes into a prompt.
+ * <p>
+ * The diff is split into files and hunks; lockfiles, binaries, vendored/generated paths and
+ * whitespace-only hunks are dropped, and the remaining budget is shared fairly between files
+ * (small files are kept whole, large ones keep as many whole hunks as fit; only a file whose
+ * first hunk alone is over its share shows that hunk cut at a line). Everything that was cut
+ * is listed with its +/- line counts, so the model still knows the file changed.
+ */
+public final class DiffCondenser {
+    private DiffCondenser() {}
+
+    private static final Set<String> LOCKFILES = Set.of(
+            "package-lock.json", "npm-shrinkwrap.json", "yarn.lock", "pnpm-lock.yaml", "bun.lockb",
+            "cargo.lock", "go.sum", "poetry.lock", "pipfile.lock", "gemfile.lock", "composer.lock",
+            "gradle.lockfile", "packages.lock.json", "podfile.lock");
+    private static final List<String> VENDORED_DIRS = List.of("vendor/", "node_modules/", "third_party/", "dist/");
+    private static final List<String> GENERATED_MARKERS = List.of(
+            "/generated/", ".generated.", ".min.js", ".min.css", ".pb.go", "_pb2.py", ".designer.cs");
+
+    private static final String OMITTED_HEADING = "\n# Omitted from this diff:\n";
+    /** A cut file must show at least this much of its hunks, otherwise it is only listed as omitted. */
+    private static final int MIN_BODY_CHARS = 256;
+
+    /** The condensed diff; {@code cut} when any of the change was dropped, rather than just tidied (e.g. {@code index} lines). */
+    public record Condensed(String diff, boolean cut) {}
+
+    private record Hunk(List<String> lines, int added, int removed, int chars) {}
+
+    private static final class FileDiff {
+        final String path;
+        final List<String> header = new ArrayList<>();
+        final List<Hunk> hunks = new ArrayList<>();
+        boolean binary;
+        int added, removed; // totals as parsed, before any hunk is dropped
+
+        FileDiff(String path) { this.path = path; }
+
+        int headerChars() { return header.stream().mapToInt(l -> l.length() + 1).sum(); }
+        int chars() { return headerChars() + hunks.stream().mapToInt(Hunk::chars).sum(); }
+    }
+
+    public static Condensed condense(String diff, int budget) {
+        if (diff == null || diff.isEmpty()) return new Condensed("", false);
+        String[] lines = diff.split("\n", -1);
+
+        List<String> preamble = new ArrayList<>();
+        List<FileDiff> files = parse(lines, preamble);
+        if (files.isEmpty()) {
+            // not a unified diff we understand – keep the old behaviour
+            return diff.length() > budget ? new Condensed(diff.substring(0, budget), true) : new Condensed(diff, false);
+        }
+
+        List<String> omitted = new ArrayList<>();
+        List<FileDiff> kept = new ArrayList<>();
+        boolean cut = false;
+        for (FileDiff f : files) {
+            String reason = f.binary ? "binary" : noiseReason(f.path);
+            if (reason == null) {
+                int hunks = f.hunks.size();
+                f.hunks.removeIf(DiffCondenser::whitespaceOnly);
+                cut |= f.hunks.size() < hunks;
+                if (hunks > 0 && f.hunks.isEmpty()) reason = "whitespace only";
+            }
+            if (reason != null) omitted.add(stat(f, reason));
+            else kept.add(f);
+        }
+
+        int total = preamble.stream().mapToInt(l -> l.length() + 1).sum()
+                + kept.stream().mapToInt(FileDiff::chars).sum();
+        StringBuilder out = new StringBuilder(Math.min(total, budget) + 256);
+        for (String l : preamble) out.append(l).append('\n');
+
+        if (total <= budget) {
+            for (FileDiff f : kept) appendWhole(out, f);
+        } else {
+            int remaining = budget - out.length() - OMITTED_HEADING.length()
+                    - omitted.stream().mapToInt(s -> s.length() + 1).sum();
+            appendFairShare(out, kept, Math.max(remaining, 0), omitted);
+        }
+
+        if (!omitted.isEmpty()) {
+            out.append(OMITTED_HEADING);
+            for (String s : omitted) out.append(s).append('\n');
+        }
+        cut |= total > budget || !omitted.isEmpty() || out.length() > budget;
+        return new Condensed(out.length() > budget ? out.substring(0, budget) : out.toString(), cut);
+    }
+
+    // ---------- parsing ----------
+
+    private static List<FileDiff> parse(String[] lines, List<String> preamble) {
+        boolean gitStyle = false;
+        for (String l : lines) {
+            if (l.startsWith("diff --git ")) { gitStyle = true; break; }
+        }
+
+        List<FileDiff> files = new ArrayList<>();
+        FileDiff cur = null;
+        List<String> hunk = null;
+        for (int i = 0; i < lines.length; i++) {
+            String l = lines[i];
+            boolean fileStart = gitStyle
+                    ? l.startsWith("diff --git ")
+                    : l.startsWith("--- ") && i + 1 < lines.length && lines[i + 1].startsWith("+++ ") && hunkEnded(lines, i);
+            if (fileStart) {
+                closeHunk(cur, hunk);
+                hunk = null;
+                cur = new FileDiff(pathOf(l, gitStyle ? null : lines[i + 1]));
+                files.add(cur);
+                cur.header.add(l);
+            } else if (cur == null) {
+                preamble.add(l);
+            } else if (l.startsWith("@@")) {
+                closeHunk(cur, hunk);
+                hunk = new ArrayList<>();
+                hunk.add(l);
+            } else if (hunk != null) {
+                hunk.add(l);
+            } else {
+                if (l.startsWith("Binary files ") || l.startsWith("GIT binary patch")) cur.binary = true;
+                if (!l.startsWith("index ")) cur.header.add(l); // blob hashes mean nothing to the model
+            }
+        }
+        closeHunk(cur, hunk);
+        return files;
+    }
+
+    /** For plain "diff -u" output: a "--- " line only starts a file when it is not a removed line inside a hunk. */
+    private static boolean hunkEnded(String[] lines, int i) {
+        for (int j = i - 1; j >= 0; j--) {
+            String p = lines[j];
+            if (p.startsWith("@@")) return false;
+            if (!(p.startsWith(" ") || p.startsWith("+") || p.startsWith("-") || p.startsWith("\\"))) return true;
+        }
+        return true;
+    }
+
+    private static void closeHunk(FileDiff f, List<String> hunk) {
+        if (f == null || hunk == null) return;
+        // drop trailing empty line produced by the final newline
+        while (hunk.size() > 1 && hunk.get(hunk.size() - 1).isEmpty()) hunk.remove(hunk.size() - 1);
+        int added = 0, removed = 0, chars = 0;
+        for (String l : hunk) {
+            if (l.startsWith("+")) added++;
+            else if (l.startsWith("-")) removed++;
+            chars += l.length() + 1;
+        }
+        f.hunks.add(new Hunk(hunk, added, removed, chars));
+        f.added += added;
+        f.removed += removed;
+    }
+
+    private static String pathOf(String header, String plusLine) {
+        String src = plusLine != null ? plusLine.substring(4) : header;
+        int b = src.lastIndexOf(" b/");
+        if (b >= 0) return src.substring(b + 3).trim();
+        if (src.startsWith("b/")) return src.substring(2).trim();
+        int tab = src.indexOf('\t');
+        return (tab >= 0 ? src.substring(0, tab) : src).trim();
+    }
+
+    // ---------- noise detection ----------
+
+    private static String noiseReason(String path) {
+        String p = path.toLowerCase(Locale.ROOT);
+        String name = p.substring(p.lastIndexOf('/') + 1);
+        if (LOCKFILES.contains(name)) return "lockfile";
+        for (String d : VENDORED_DIRS) {
+            if (p.startsWith(d) || p.contains("/" + d)) return "vendored";
+        }
+        for (String g : GENERATED_MARKERS) {
+            if (p.contains(g) || (g.startsWith("/") && p.startsWith(g.substring(1)))) return "generated";
+        }
+        return null;
+    }
+
+    /**
+     * A hunk whose removed and added lines read the same once every run of whitespace, line breaks
+     * included, counts as one space: re-indenting and re-wrapping, but not {@code "a b"} → {@code "ab"}.
+     */
+    private static boolean whitespaceOnly(Hunk h) {
+        if (h.added() == 0 && h.removed() == 0) return false;
+        StringBuilder minus = new StringBuilder(), plus = new StringBuilder();
+        for (String l : h.lines()) {
+            if (l.startsWith("-")) appendCollapsed(minus, l);
+            else if (l.startsWith("+")) appendCollapsed(plus, l);
+        }
+        return minus.toString().contentEquals(plus);
+    }
+
+    /** Append the line without its +/- marker, whitespace runs (and the break before it) as one space. */
+    private static void appendCollapsed(StringBuilder sb, String line) {
+        boolean space = sb.length() > 0;
+        for (int i = 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+            } else {
+                if (space) sb.append(' ');
+                space = false;
+                sb.append(c);
+            }
+        }
+    }
+
+    // ---------- budget allocation ----------
+
+    private static void appendWhole(StringBuilder out, FileDiff f) {
+        for (String l : f.header) out.append(l).append('\n');
+        for (Hunk h : f.hunks) {
+            for (String l : h.lines()) out.append(l).append('\n');
+        }
+    }
+
+    /**
+     * Water-filling: visit files from smallest to largest, giving each at most an equal share of
+     * what is left, so small files survive whole and large files split the remainder. While some
+     * file's share is too small to show anything useful, the largest such file is listed as
+     * omitted instead and the shares are recomputed without it.
+     */
+    private static void appendFairShare(StringBuilder out, List<FileDiff> kept, int budget, List<String> omitted) {
+        List<FileDiff> live = new ArrayList<>(kept);
+        live.sort(Comparator.comparingInt(FileDiff::chars));
+        Map<FileDiff, Integer> grant = new IdentityHashMap<>();
+        while (true) {
+            grant.clear();
+            int remaining = budget;
+            FileDiff starved = null;
+            for (int n = 0; n < live.size(); n++) {
+                FileDiff f = live.get(n);
+                int g = Math.min(f.chars(), remaining / (live.size() - n));
+                grant.put(f, g);
+                remaining -= g;
+                if (g < f.chars() && g < f.headerChars() + cutNoteChars(f) + MIN_BODY_CHARS) starved = f;
+            }
+            if (starved == null) break;
+            live.remove(starved); // sorted ascending, so this is the largest starved file
+            budget -= stat(starved, "over budget").length() + 1;
+        }
+
+        // emit in original order so the diff still reads naturally
+        for (FileDiff f : kept) {
+            Integer g = grant.get(f);
+            if (g == null) omitted.add(stat(f, "over budget"));
+            else if (g >= f.chars()) appendWhole(out, f);
+            else appendCut(out, f, g - cutNoteChars(f));
+        }
+    }
+
+    /** Whole hunks while they fit; lines of the first hunk only when not even that one fits. */
+    private static void appendCut(StringBuilder out, FileDiff f, int budget) {
+        for (String l : f.header) out.append(l).append('\n');
+        int used = f.headerChars();
+        int shown = 0;
+        while (shown < f.hunks.size() && used + f.hunks.get(shown).chars() <= budget) {
+            for (String l : f.hunks.get(shown).lines()) out.append(l).append('\n');
+            used += f.hunks.get(shown++).chars();
+        }
+        int partial = 0; // lines shown of hunk 'shown'
+        if (shown == 0 && !f.hunks.isEmpty()) {
+            List<String> first = f.hunks.get(0).lines();
+            while (partial < first.size() && used + first.get(partial).length() + 1 <= budget) {
+                out.append(first.get(partial)).append('\n');
+                used += first.get(partial++).length() + 1;
+            }
+        }
+
+        int skippedAdded = 0, skippedRemoved = 0;
+        for (int i = shown; i < f.hunks.size(); i++) {
+            List<String> lines = f.hunks.get(i).lines();
+            for (int j = i == shown ? partial : 0; j < lines.size(); j++) {
+                if (lines.get(j).startsWith("+")) skippedAdded++;
+                else if (lines.get(j).startsWith("-")) skippedRemoved++;
+            }
+        }
+        out.append("[… rest of ").append(f.path).append(" omitted: +").append(skippedAdded)
+                .append("/-").append(skippedRemoved).append(" lines]\n");
+    }
+
+    /** Room reserved for the "[… rest of path omitted: +a/-r lines]" line of a cut file. */
+    private static int cutNoteChars(FileDiff f) {
+        return f.path.length() + 48;
+    }
+
+    private static String stat(FileDiff f, String reason) {
+        return "- " + f.path + " (" + reason + ", +" + f.added + "/-" + f.removed + ")";
+    }
+}
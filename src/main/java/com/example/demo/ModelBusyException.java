@@ -0,0 +1,12 @@
+package com.example.demo;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** Thrown when the model-call bulkhead is saturated; surfaces as 429 so callers back off. */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class ModelBusyException extends RuntimeException {
+    public ModelBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulkhead for outbound model calls. At most {@code max-concurrent} calls run at once,
+ * at most {@code queue} callers wait for a slot, and nobody waits longer than {@code max-wait}.
+ * Anything beyond that is rejected straight away with {@link ModelBusyException} (HTTP 429),
+ * so cheap endpoints keep their threads.
+ */
+@Component
+public class ModelCallLimiter {
+
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final int queueLimit;
+    private final long maxWaitNanos;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public ModelCallLimiter(@Value("${commit-ai.model-calls.max-concurrent:16}") int maxConcurrent,
+                            @Value("${commit-ai.model-calls.queue:32}") int queueLimit,
+                            @Value("${commit-ai.model-calls.max-wait:2s}") Duration maxWait) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxPermits = maxConcurrent;
+        this.queueLimit = queueLimit;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    /**
+     * Take a slot; pair with {@link #release()}. Blocking calls get theirs from {@link ModelClient}, which
+     * holds it until the request has returned; streams hold theirs until the stream terminates.
+     */
+    public void acquire() {
+        if (permits.tryAcquire()) return;
+        if (waiting.incrementAndGet() > queueLimit) {
+            waiting.decrementAndGet();
+            throw new ModelBusyException("Model call queue is full");
+        }
+        try {
+            if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                throw new ModelBusyException("Timed out waiting for a model call slot");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModelBusyException("Interrupted while waiting for a model call slot");
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /** Take a slot only if one is free right now, e.g. for optional extra work such as a hedged request. */
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int inFlight() { return maxPermits - permits.availablePermits(); }
+
+    public int queued() { return waiting.get(); }
+}
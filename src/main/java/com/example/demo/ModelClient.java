@@ -0,0 +1,321 @@
+package com.example.demo;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The one way the app talks to the {@link ChatClient} (and, through {@link #call(String, Supplier)}, to
+ * other models such as the embedding model). A blocking call goes through, in order:
+ * <ol>
+ *   <li>the {@link ModelCallLimiter} bulkhead (429 when saturated),</li>
+ *   <li>a {@link CircuitBreaker}: while it is open the call fails at once with
+ *       {@link ModelUnavailableException} and callers use their deterministic fallback,</li>
+ *   <li>a per-endpoint deadline ({@code commit-ai.resilience.deadlines.<endpoint>}, else
+ *       {@code deadline}) covering every attempt; running out ends in {@link ModelTimeoutException},</li>
+ *   <li>up to {@code retries} retries of transient failures with full-jitter exponential backoff,</li>
+ *   <li>optionally a hedge: if an attempt has not answered after {@code hedge-after}, a second
+ *       identical request is started – only when the limiter has a free slot – and the first reply wins.</li>
+ * </ol>
+ * A limiter slot stays taken until the request using it has returned, even if the caller gave up on it
+ * at the deadline: an abandoned HTTP call may not notice the interrupt, and it still costs the model.
+ * Streams get the limiter-free part of that: the breaker, and the deadline as a limit on silence
+ * (until the first token and between tokens), since a healthy stream may run longer. A stream
+ * cannot be retried once tokens have gone to the client.
+ */
+@Component
+public class ModelClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelClient.class);
+
+    /** Deadlines, retry and hedging settings; {@code hedgeAfter} of zero turns hedging off. */
+    record Policy(Duration deadline, Map<String, Duration> deadlines, int retries,
+                  Duration backoff, Duration maxBackoff, Duration hedgeAfter) {
+
+        Duration deadline(String endpoint) {
+            return deadlines.getOrDefault(endpoint, deadline);
+        }
+    }
+
+    private final ChatClient chat; // can be null
+    private final ModelCallLimiter limiter;
+    private final ModelMetrics metrics;
+    private final Policy policy;
+    private final CircuitBreaker breaker;
+    private final Duration openFor;
+    private final ExecutorService attempts = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Autowired
+    public ModelClient(@Autowired(required = false) ChatClient chat, ModelCallLimiter limiter, ModelMetrics metrics,
+                       Environment env,
+                       @Value("${commit-ai.resilience.deadline:30s}") Duration deadline,
+                       @Value("${commit-ai.resilience.retries:2}") int retries,
+                       @Value("${commit-ai.resilience.backoff:200ms}") Duration backoff,
+                       @Value("${commit-ai.resilience.max-backoff:2s}") Duration maxBackoff,
+                       @Value("${commit-ai.resilience.hedge-after:0s}") Duration hedgeAfter,
+                       @Value("${commit-ai.resilience.circuit.window:20}") int window,
+                       @Value("${commit-ai.resilience.circuit.min-calls:10}") int minCalls,
+                       @Value("${commit-ai.resilience.circuit.failure-rate:0.5}") double failureRate,
+                       @Value("${commit-ai.resilience.circuit.open-for:30s}") Duration openFor) {
+        this(chat, limiter, metrics,
+                new Policy(deadline, Binder.get(env)
+                        .bind("commit-ai.resilience.deadlines", Bindable.mapOf(String.class, Duration.class))
+                        .orElse(Map.of()), retries, backoff, maxBackoff, hedgeAfter),
+                window, minCalls, failureRate, openFor);
+    }
+
+    ModelClient(ChatClient chat, ModelCallLimiter limiter, ModelMetrics metrics, Policy policy,
+                int window, int minCalls, double failureRate, Duration openFor) {
+        this.chat = chat;
+        this.limiter = limiter;
+        this.metrics = metrics;
+        this.policy = policy;
+        this.openFor = openFor;
+        this.breaker = new CircuitBreaker(window, minCalls, failureRate, openFor, this::onTransition);
+        metrics.circuit(breaker);
+    }
+
+    /** Whether a {@link ChatClient} is configured at all. */
+    public boolean available() {
+        return chat != null;
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    public double recentFailureRate() {
+        return breaker.failureRate();
+    }
+
+    // ---------- blocking calls ----------
+
+    /** The model's reply to {@code prompt}, under the limiter, breaker, deadline, retry and hedging policy. */
+    public String call(String endpoint, String prompt) {
+        if (chat == null) throw new IllegalStateException("No ChatClient configured");
+        return call(endpoint, () -> invoke(endpoint, prompt));
+    }
+
+    /** Any other model request (e.g. an embedding), under the same policy and the same breaker as chat calls. */
+    public <T> T call(String endpoint, Supplier<T> request) {
+        limiter.acquire();
+        Slot slot = new Slot();
+        try {
+            return guarded(endpoint, request, slot);
+        } finally {
+            slot.release();
+        }
+    }
+
+    /** The caller's limiter slot, shared with its attempts; freed once the caller and every attempt are done. */
+    private final class Slot {
+        private final AtomicInteger holders = new AtomicInteger(1);
+
+        void retain() {
+            holders.incrementAndGet();
+        }
+
+        void release() {
+            if (holders.decrementAndGet() == 0) limiter.release();
+        }
+    }
+
+    /** A request that lets go of its slot when its call returns, or when it is cancelled before it started. */
+    private static final class Held<T> implements Callable<T> {
+        private final Supplier<T> request;
+        private final Runnable release;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        Held(Supplier<T> request, Runnable release) {
+            this.request = request;
+            this.release = release;
+        }
+
+        @Override
+        public T call() {
+            if (!claimed.compareAndSet(false, true)) throw new CancellationException();
+            try {
+                return request.get();
+            } finally {
+                release.run();
+            }
+        }
+
+        void abandon() {
+            if (claimed.compareAndSet(false, true)) release.run();
+        }
+    }
+
+    private <T> T guarded(String endpoint, Supplier<T> request, Slot slot) {
+        if (!breaker.tryAcquire()) {
+            metrics.circuitRejected(endpoint);
+            throw new ModelUnavailableException("Model circuit is open; not calling the model for " + endpoint);
+        }
+        Duration timeout = policy.deadline(endpoint);
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                T reply = attempt(endpoint, request, slot, deadline, timeout);
+                breaker.onSuccess();
+                return reply;
+            } catch (NonTransientAiException e) {
+                breaker.onIgnored(); // the request was refused (bad key, bad prompt); retrying won't help
+                throw e;
+            } catch (RuntimeException e) {
+                long pause = backoff(attempt);
+                if (e instanceof ModelTimeoutException || attempt >= policy.retries()
+                        || System.nanoTime() + pause >= deadline) {
+                    breaker.onFailure();
+                    throw e;
+                }
+                log.debug("Model call for {} failed (attempt {}); retrying in {} ms: {}",
+                        endpoint, attempt + 1, TimeUnit.NANOSECONDS.toMillis(pause), e.toString());
+                metrics.retried(endpoint);
+                if (!sleep(pause)) {
+                    breaker.onIgnored();
+                    throw new ModelTimeoutException("Interrupted while backing off before retrying " + endpoint);
+                }
+            }
+        }
+    }
+
+    /** One attempt, plus its hedge if it is slow; returns the first reply or throws the last failure. */
+    private <T> T attempt(String endpoint, Supplier<T> request, Slot slot, long deadline, Duration timeout) {
+        CompletionService<T> replies = new ExecutorCompletionService<>(attempts);
+        List<Future<T>> started = new ArrayList<>(2);
+        List<Held<T>> requests = new ArrayList<>(2);
+        slot.retain();
+        Held<T> first = new Held<>(request, slot::release);
+        requests.add(first);
+        started.add(replies.submit(first));
+        try {
+            Future<T> done = null;
+            long hedgeAfter = policy.hedgeAfter().toNanos();
+            if (hedgeAfter > 0 && System.nanoTime() + hedgeAfter < deadline) {
+                done = replies.poll(hedgeAfter, TimeUnit.NANOSECONDS);
+                if (done == null && limiter.tryAcquire()) { // only hedge into spare capacity
+                    metrics.hedged(endpoint);
+                    Held<T> hedge = new Held<>(request, limiter::release);
+                    requests.add(hedge);
+                    started.add(replies.submit(hedge));
+                }
+            }
+            for (int pending = started.size(); ; ) {
+                if (done == null) {
+                    long left = deadline - System.nanoTime();
+                    done = left > 0 ? replies.poll(left, TimeUnit.NANOSECONDS) : null;
+                    if (done == null) {
+                        throw new ModelTimeoutException("Model call for " + endpoint + " exceeded its " + timeout + " deadline");
+                    }
+                }
+                pending--;
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    if (pending == 0) throw unwrap(e.getCause());
+                    done = null; // the other request may still answer
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModelTimeoutException("Interrupted while waiting for the model (" + endpoint + ")");
+        } finally {
+            for (Future<T> f : started) f.cancel(true); // interrupts the losing or abandoned request
+            for (Held<T> r : requests) r.abandon(); // frees the slot of a request that never started
+        }
+    }
+
+    private String invoke(String endpoint, String prompt) {
+        return metrics.call(endpoint, prompt, () -> chat.prompt(prompt).call().content());
+    }
+
+    /** Full jitter: uniformly random in [0, min(max-backoff, backoff · 2^attempt)). */
+    private long backoff(int attempt) {
+        long cap = Math.min(policy.maxBackoff().toNanos(), policy.backoff().toNanos() << Math.min(attempt, 20));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap);
+    }
+
+    private static boolean sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable t) {
+        if (t instanceof RuntimeException r) return r;
+        if (t instanceof Error e) throw e;
+        return new IllegalStateException(t);
+    }
+
+    // ---------- streaming ----------
+
+    /**
+     * Token stream for {@code prompt}, guarded by the breaker and the endpoint's deadline as a limit on
+     * silence. The limiter slot is the caller's to take and release, since it must be held for as long
+     * as the stream runs.
+     */
+    public Flux<String> stream(String endpoint, String prompt) {
+        if (chat == null) return Flux.error(new IllegalStateException("No ChatClient configured"));
+        return Flux.defer(() -> {
+            if (!breaker.tryAcquire()) {
+                metrics.circuitRejected(endpoint);
+                return Flux.error(new ModelUnavailableException("Model circuit is open; not calling the model for " + endpoint));
+            }
+            return metrics.stream(endpoint, prompt, () -> chat.prompt(prompt).stream().content())
+                    .timeout(policy.deadline(endpoint))
+                    .doFinally(signal -> {
+                        if (signal == SignalType.ON_COMPLETE) breaker.onSuccess();
+                        else if (signal == SignalType.ON_ERROR) breaker.onFailure();
+                        else breaker.onIgnored();
+                    });
+        });
+    }
+
+    // ---------- lifecycle ----------
+
+    private void onTransition(CircuitBreaker.State to) {
+        metrics.circuitTransition(to);
+        if (to == CircuitBreaker.State.OPEN) {
+            log.warn("Model circuit opened; using fallbacks for the next {}", openFor);
+        } else {
+            log.info("Model circuit {}", to == CircuitBreaker.State.CLOSED ? "closed" : "half-open, probing");
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        attempts.shutdownNow();
+    }
+}
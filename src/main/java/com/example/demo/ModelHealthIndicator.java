@@ -0,0 +1,33 @@
+package com.example.demo;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code model} component of {@code /actuator/health}: the model circuit breaker. An open or
+ * half-open circuit reports {@code DEGRADED} rather than {@code DOWN} – the app keeps answering
+ * with deterministic fallbacks, so it should not be taken out of rotation or restarted for it.
+ */
+@Component
+public class ModelHealthIndicator implements HealthIndicator {
+
+    static final Status DEGRADED = new Status("DEGRADED", "Model calls are failing; serving fallbacks");
+
+    private final ModelClient models;
+
+    public ModelHealthIndicator(ModelClient models) {
+        this.models = models;
+    }
+
+    @Override
+    public Health health() {
+        if (!models.available()) return Health.unknown().withDetail("chatClient", "not configured").build();
+        CircuitBreaker.State state = models.circuitState();
+        return Health.status(state == CircuitBreaker.State.CLOSED ? Status.UP : DEGRADED)
+                .withDetail("circuit", state.name())
+                .withDetail("recentFailureRate", models.recentFailureRate())
+                .build();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Metrics for everything that talks to the model:
+ * <ul>
+ *   <li>{@code model.call} – latency per {@code endpoint} and {@code outcome} (success/error/cancelled), with histogram buckets</li>
+ *   <li>{@code model.call.first.token} – time to first token on streaming calls</li>
+ *   <li>{@code model.prompt.size} / {@code model.response.size} – chars per {@code endpoint}, and estimated tokens as {@code …size.tokens}</li>
+ *   <li>{@code commit.diff.prompts} – diffs sent as-is vs condensed ({@code truncated} tag)</li>
+ *   <li>{@code commit.parse.results} – how model replies were parsed (direct, rescued, invalid, failed)</li>
+ *   <li>{@code pr.polish.fallbacks} – polish attempts that returned the unpolished markdown</li>
+ *   <li>{@code model.calls.in.flight} / {@code model.calls.queued} – {@link ModelCallLimiter} occupancy</li>
+ *   <li>{@code model.calls.coalesced} – requests that shared an identical in-flight call ({@link SingleFlight})</li>
+ *   <li>{@code model.call.retries} / {@code model.call.hedges} – extra attempts made by {@link ModelClient}</li>
+ *   <li>{@code model.circuit.state} (0 closed, 1 half-open, 2 open), {@code model.circuit.failure.rate},
+ *       {@code model.circuit.transitions} and {@code model.circuit.rejected} – the model circuit breaker</li>
+ * </ul>
+ * Model calls are timed inside the limiter, so queueing time is not part of {@code model.call}.
+ */
+@Component
+public class ModelMetrics {
+
+    /**
+     * How {@link CommitService#parse} got a {@link CommitMessage} out of the model reply: the reply
+     * was the JSON object, the object was found inside other text, the only objects had a bad type or
+     * subject, or there was no JSON object at all.
+     */
+    public enum ParseOutcome { DIRECT, RESCUED, INVALID, FAILED }
+
+    private final MeterRegistry registry;
+    private final Map<ParseOutcome, Counter> parseResults = new EnumMap<>(ParseOutcome.class);
+    private final Counter diffsAsIs;
+    private final Counter diffsTruncated;
+
+    public ModelMetrics(MeterRegistry registry, ModelCallLimiter limiter) {
+        this.registry = registry;
+        for (ParseOutcome o : ParseOutcome.values()) {
+            parseResults.put(o, Counter.builder("commit.parse.results")
+                    .tag("outcome", o.name().toLowerCase(Locale.ROOT)).register(registry));
+        }
+        this.diffsAsIs = Counter.builder("commit.diff.prompts").tag("truncated", "false").register(registry);
+        this.diffsTruncated = Counter.builder("commit.diff.prompts").tag("truncated", "true").register(registry);
+        Gauge.builder("model.calls.in.flight", limiter, ModelCallLimiter::inFlight).register(registry);
+        Gauge.builder("model.calls.queued", limiter, ModelCallLimiter::queued).register(registry);
+    }
+
+    // ---------- model calls ----------
+
+    /** Run a blocking model call, recording its latency and the prompt and reply sizes. */
+    public String call(String endpoint, String prompt, Supplier<String> modelCall) {
+        recordSize("model.prompt.size", endpoint, prompt == null ? 0 : prompt.length());
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            String reply = modelCall.get();
+            outcome = "success";
+            recordSize("model.response.size", endpoint, reply == null ? 0 : reply.length());
+            return reply;
+        } finally {
+            timer(endpoint, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Run an embedding call, timed like {@link #call}; only the input size is recorded. */
+    public float[] embed(String endpoint, String text, Supplier<float[]> embeddingCall) {
+        recordSize("model.prompt.size", endpoint, text == null ? 0 : text.length());
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            float[] vector = embeddingCall.get();
+            outcome = "success";
+            return vector;
+        } finally {
+            timer(endpoint, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Streaming counterpart of {@link #call}: the token stream from {@code tokens} is timed from
+     * subscription to termination, with time to first token recorded separately.
+     */
+    public Flux<String> stream(String endpoint, String prompt, Supplier<Flux<String>> tokens) {
+        return Flux.defer(() -> {
+            recordSize("model.prompt.size", endpoint, prompt == null ? 0 : prompt.length());
+            long start = System.nanoTime();
+            AtomicBoolean first = new AtomicBoolean(true);
+            AtomicLong chars = new AtomicLong();
+            return Flux.defer(tokens)
+                    .doOnNext(token -> {
+                        if (first.compareAndSet(true, false)) {
+                            Timer.builder("model.call.first.token").tag("endpoint", endpoint)
+                                    .publishPercentileHistogram().register(registry)
+                                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        }
+                        chars.addAndGet(token.length());
+                    })
+                    .doFinally(signal -> {
+                        String outcome = signal == SignalType.ON_COMPLETE ? "success"
+                                : signal == SignalType.ON_ERROR ? "error" : "cancelled";
+                        timer(endpoint, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        if (signal == SignalType.ON_COMPLETE) {
+                            recordSize("model.response.size", endpoint, (int) Math.min(chars.get(), Integer.MAX_VALUE));
+                        }
+                    });
+        });
+    }
+
+    /** A request joined an identical call already in flight instead of making its own. */
+    public void coalesced(String endpoint) {
+        Counter.builder("model.calls.coalesced").tag("endpoint", endpoint).register(registry).increment();
+    }
+
+    public void retried(String endpoint) {
+        Counter.builder("model.call.retries").tag("endpoint", endpoint).register(registry).increment();
+    }
+
+    public void hedged(String endpoint) {
+        Counter.builder("model.call.hedges").tag("endpoint", endpoint).register(registry).increment();
+    }
+
+    // ---------- circuit breaker ----------
+
+    void circuit(CircuitBreaker breaker) {
+        Gauge.builder("model.circuit.state", breaker, b -> b.state().ordinal()).register(registry);
+        Gauge.builder("model.circuit.failure.rate", breaker, CircuitBreaker::failureRate).register(registry);
+    }
+
+    void circuitTransition(CircuitBreaker.State to) {
+        Counter.builder("model.circuit.transitions").tag("state", to.name().toLowerCase(Locale.ROOT))
+                .register(registry).increment();
+    }
+
+    /** A call was refused without reaching the model because the circuit is open. */
+    public void circuitRejected(String endpoint) {
+        Counter.builder("model.circuit.rejected").tag("endpoint", endpoint).register(registry).increment();
+    }
+
+    // ---------- commit pipeline ----------
+
+    /** Count a diff on its way into a prompt; {@code truncated} when the condenser changed it. */
+    public void diffPrompt(boolean truncated) {
+        (truncated ? diffsTruncated : diffsAsIs).increment();
+    }
+
+    public void parseResult(ParseOutcome outcome) {
+        parseResults.get(outcome).increment();
+    }
+
+    // ---------- PR polish ----------
+
+    public void polishFallback(String reason) {
+        Counter.builder("pr.polish.fallbacks").tag("reason", reason).register(registry).increment();
+    }
+
+    // ---------- small helpers ----------
+
+    private Timer timer(String endpoint, String outcome) {
+        return Timer.builder("model.call")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private void recordSize(String name, String endpoint, int chars) {
+        DistributionSummary.builder(name).baseUnit("chars").tag("endpoint", endpoint)
+                .register(registry).record(chars);
+        DistributionSummary.builder(name + ".tokens").baseUnit("tokens").tag("endpoint", endpoint)
+                .register(registry).record(estimateTokens(chars));
+    }
+
+    /** Rough token count for English text and code: about four characters per token. */
+    static int estimateTokens(int chars) {
+        return (chars + 3) / 4;
+    }
+}
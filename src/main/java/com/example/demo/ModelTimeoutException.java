@@ -0,0 +1,12 @@
+package com.example.demo;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** Thrown when a model call, retries and hedges included, did not finish within its endpoint's deadline. */
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class ModelTimeoutException extends RuntimeException {
+    public ModelTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** Thrown without calling the model while its circuit breaker is open; callers fall back right away. */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ModelUnavailableException extends RuntimeException {
+    public ModelUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.demo;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Incremental Markdown renderer for PR descriptions.
+ * Commits are folded in one at a time via {@link #accept(CommitMessage)}; only the
+ * rendered per-type sections, breaking changes and distinct issues are kept, never the
+ * commits themselves. {@link #writeTo(Writer)} then streams the final document.
+ */
+public final class PrDescriptionRenderer {
+
+    private final StringBuilder[] sections = new StringBuilder[CommitType.values().length];
+    private final List<String> breaking = new ArrayList<>();
+    private final Set<String> issues = new LinkedHashSet<>();
+    private String preferredTitle;
+    private String fallbackTitle;
+    private int count;
+
+    public void accept(CommitMessage c) {
+        count++;
+        CommitType type = c.type() == null ? CommitType.OTHER : CommitType.of(c.type());
+
+        String subject = c.subject() == null ? null : c.subject().trim();
+        if (subject != null && !subject.isBlank()) {
+            if (fallbackTitle == null) fallbackTitle = subject;
+            if (preferredTitle == null && type != null && type.titleWorthy()) {
+                preferredTitle = subject;
+            }
+        }
+
+        // unknown types are counted but not listed, as before
+        if (type != null) appendChange(section(type), type.label(), c);
+
+        if (c.breakingChange() != null) {
+            String b = c.breakingChange().trim(); // trim first: it also drops control characters
+            if (!b.isBlank()) breaking.add(b);
+        }
+        if (c.issues() != null) issues.addAll(c.issues());
+    }
+
+    public int count() { return count; }
+
+    /** Render into a String – for callers that need the whole document (e.g. AI polishing). */
+    public String render() {
+        var out = new StringWriter();
+        try {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for a StringWriter
+        }
+        return out.toString();
+    }
+
+    public void writeTo(Writer out) throws IOException {
+        if (count == 0) {
+            out.write("# Update\n\n_No commits found._\n");
+            return;
+        }
+
+        String title = preferredTitle != null ? preferredTitle
+                : fallbackTitle != null ? fallbackTitle : "Update";
+        out.write("# ");
+        out.write(PrDescriptionService.stripWrappingQuotes(title));
+        out.write("\n\n");
+
+        out.write("## Summary\n");
+        out.write("- This PR includes " + count + " commit" + (count == 1 ? "" : "s") + ".\n\n");
+
+        out.write("## Changes\n");
+        for (StringBuilder section : sections) {
+            if (section == null) continue;
+            out.append(section).append("\n");
+        }
+
+        if (!breaking.isEmpty()) {
+            out.write("## ⚠️ Breaking Changes\n");
+            for (String b : breaking) out.append("- ").append(b).append("\n");
+            out.write("\n");
+        }
+
+        if (!issues.isEmpty()) {
+            out.append("## Related Issues\n").append(String.join(" ", issues)).append("\n\n");
+        }
+
+        out.write("_Generated from Conventional Commit messages._\n");
+    }
+
+    // ---------- small helpers ----------
+
+    private StringBuilder section(CommitType type) {
+        int idx = type.ordinal();
+        if (sections[idx] == null) {
+            sections[idx] = new StringBuilder(256).append("### ").append(type.label()).append('\n');
+        }
+        return sections[idx];
+    }
+
+    private static void appendChange(StringBuilder sb, String t, CommitMessage c) {
+        boolean breaking = c.breakingChange()!=null && !c.breakingChange().isBlank();
+
+        // Header line for this commit
+        sb.append("- ").append(t);
+        if (c.scope() != null && !c.scope().isBlank()) {
+            sb.append('(');
+            appendTrimmed(sb, c.scope(), 0, c.scope().length());
+            sb.append(')');
+        }
+        if (breaking) sb.append('!');
+        sb.append(": ");
+        if (c.subject() != null) appendTrimmed(sb, c.subject(), 0, c.subject().length());
+        sb.append('\n');
+
+        // BODY → bullets (preserve existing "- " bullets, otherwise add our own)
+        if (c.body()!=null && !c.body().isBlank()) appendBodyBullets(sb, c.body());
+
+        // BREAKING (if any)
+        if (breaking) {
+            sb.append("  - BREAKING: ");
+            appendTrimmed(sb, c.breakingChange(), 0, c.breakingChange().length());
+            sb.append('\n');
+        }
+
+        // Issues (if any)
+        if (c.issues()!=null && !c.issues().isEmpty()) {
+            sb.append("  - Issues: ");
+            appendJoined(sb, c.issues());
+            sb.append('\n');
+        }
+    }
+
+    /**
+     * Same output as {@code body.strip().split("\\R+")} → trim → skip blank → bullet,
+     * but scanning the body in place instead of allocating a String per line.
+     */
+    private static void appendBodyBullets(StringBuilder sb, String body) {
+        int start = 0, end = body.length();
+        while (start < end && Character.isWhitespace(body.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(body.charAt(end - 1))) end--;
+
+        int lineStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i < end && !isLineBreak(body.charAt(i))) continue;
+            int from = lineStart, to = i;
+            while (from < to && body.charAt(from) <= ' ') from++;   // String.trim()
+            while (to > from && body.charAt(to - 1) <= ' ') to--;
+            if (!isBlank(body, from, to)) {
+                boolean bullet = to - from >= 2 && body.startsWith("- ", from); // within the trimmed line
+                sb.append(bullet ? "  " : "  - ").append(body, from, to).append('\n');
+            }
+            lineStart = i + 1;
+        }
+    }
+
+    /** Characters {@code \\R} splits on. */
+    private static boolean isLineBreak(char c) {
+        return c == '\n' || c == '\r' || c == '\u000B' || c == '\f'
+                || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isBlank(CharSequence s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(s.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /** Append {@code s.substring(from, to).trim()} without the substring. */
+    private static void appendTrimmed(StringBuilder sb, String s, int from, int to) {
+        while (from < to && s.charAt(from) <= ' ') from++;
+        while (to > from && s.charAt(to - 1) <= ' ') to--;
+        sb.append(s, from, to);
+    }
+
+    private static void appendJoined(StringBuilder sb, List<String> parts) {
+        for (int i = 0; i < parts.size(); i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(parts.get(i));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a description produced by {@link PrDescriptionRenderer} into the pieces the chunked
+ * polish works on: the head (title and summary), each {@code ### type} section cut into
+ * bullet-aligned chunks of at most {@code maxChunkChars}, and the tail (breaking changes,
+ * related issues, footer), which is kept verbatim.
+ */
+final class PrDescriptionSections {
+
+    private static final String CHANGES = "## Changes\n";
+
+    /** One {@code ### type} section; {@code chunks} concatenated give back its bullet lines. */
+    record Section(String heading, List<String> chunks) {
+        String type() { return heading.substring(4).strip(); }
+
+        int bullets() {
+            int n = 0;
+            for (String c : chunks) {
+                if (c.startsWith("- ")) n++;
+                for (int i = c.indexOf("\n- "); i >= 0; i = c.indexOf("\n- ", i + 1)) n++;
+            }
+            return n;
+        }
+    }
+
+    final String head;
+    final List<Section> sections;
+    final String tail;
+
+    private PrDescriptionSections(String head, List<Section> sections, String tail) {
+        this.head = head;
+        this.sections = sections;
+        this.tail = tail;
+    }
+
+    /** {@code null} when {@code md} does not have the renderer's layout. */
+    static PrDescriptionSections split(String md, int maxChunkChars) {
+        int changes = md.startsWith(CHANGES) ? 0 : md.indexOf("\n" + CHANGES);
+        if (changes < 0) return null;
+        int pos = changes == 0 ? CHANGES.length() : changes + 1 + CHANGES.length();
+        String head = md.substring(0, changes == 0 ? 0 : changes + 1);
+
+        List<Section> sections = new ArrayList<>();
+        while (md.startsWith("### ", pos)) {
+            int eol = lineEnd(md, pos);
+            String heading = md.substring(pos, eol);
+            pos = eol;
+
+            // items run until the blank line the renderer puts after every section
+            List<String> chunks = new ArrayList<>();
+            StringBuilder chunk = new StringBuilder();
+            while (pos < md.length() && md.charAt(pos) != '\n' && !md.startsWith("### ", pos)) {
+                // one item = a top-level bullet plus its nested lines; chunks never split an item
+                int end = lineEnd(md, pos);
+                while (end < md.length() && md.charAt(end) != '\n'
+                        && !md.startsWith("- ", end) && !md.startsWith("### ", end)) {
+                    end = lineEnd(md, end);
+                }
+                if (chunk.length() > 0 && chunk.length() + (end - pos) > maxChunkChars) {
+                    chunks.add(chunk.toString());
+                    chunk.setLength(0);
+                }
+                chunk.append(md, pos, end);
+                pos = end;
+            }
+            if (chunk.length() > 0) chunks.add(chunk.toString());
+            while (pos < md.length() && md.charAt(pos) == '\n') pos++;
+            sections.add(new Section(heading, chunks));
+        }
+        if (sections.isEmpty()) return null;
+        return new PrDescriptionSections(head, sections, md.substring(pos));
+    }
+
+    /** Reassemble with the given replacements, in the renderer's layout. */
+    static String join(String head, List<Section> sections, List<List<String>> chunks, String tail) {
+        StringBuilder out = new StringBuilder(head.length() + tail.length() + 1024);
+        out.append(head).append(CHANGES);
+        for (int s = 0; s < sections.size(); s++) {
+            out.append(sections.get(s).heading());
+            for (String c : chunks.get(s)) {
+                out.append(c);
+                if (!c.endsWith("\n")) out.append('\n');
+            }
+            out.append('\n');
+        }
+        return out.append(tail).toString();
+    }
+
+    private static int lineEnd(String s, int from) {
+        int nl = s.indexOf('\n', from);
+        return nl < 0 ? s.length() : nl + 1;
+    }
+}
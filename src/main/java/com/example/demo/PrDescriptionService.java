@@ -1,114 +1,276 @@
 package com.example.demo;
 
-import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 @Service
 public class PrDescriptionService {
 
-    private final ChatClient chat; // can be null
+    private static final Logger log = LoggerFactory.getLogger(PrDescriptionService.class);
+    private static final ObjectReader COMMIT_READER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .readerFor(CommitMessage.class);
 
-    public PrDescriptionService(@Autowired(required = false) ChatClient chat) {
-        this.chat = chat;
+    private final ModelClient models;
+    private final ModelCallLimiter limiter;
+    private final ModelMetrics metrics;
+    private final CommitStore store;
+    private final SingleFlight<String, String> inFlightPolish;
+    private final int chunkChars;
+    private final int parallelism;
+
+    public PrDescriptionService(ModelClient models, ModelCallLimiter limiter,
+                                ModelMetrics metrics, CommitStore store,
+                                @Value("${commit-ai.polish.chunk-chars:12000}") int chunkChars,
+                                @Value("${commit-ai.polish.parallelism:4}") int parallelism) {
+        this.models = models;
+        this.limiter = limiter;
+        this.metrics = metrics;
+        this.store = store;
+        this.chunkChars = chunkChars;
+        this.parallelism = parallelism;
+        this.inFlightPolish = new SingleFlight<>(() -> metrics.coalesced("pr-polish"));
     }
 
     public String buildDeterministic(List<CommitMessage> commits) {
-        if (commits == null || commits.isEmpty()) return "# Update\n\n_No commits found._\n";
-
-        String title = commits.stream()
-                .filter(c -> {
-                    var t = c.type() == null ? "" : c.type().toLowerCase(Locale.ROOT);
-                    return List.of("feat","fix","perf","refactor").contains(t);
-                })
-                .map(CommitMessage::subject)
-                .filter(Objects::nonNull).map(String::trim).filter(s -> !s.isBlank())
-                .findFirst()
-                .orElseGet(() -> commits.stream()
-                        .map(CommitMessage::subject).filter(Objects::nonNull).map(String::trim)
-                        .filter(s -> !s.isBlank()).findFirst().orElse("Update"));
-        title = stripWrappingQuotes(title);
-
-        var byType = commits.stream()
-                .collect(Collectors.groupingBy(
-                        c -> Optional.ofNullable(c.type()).orElse("other").toLowerCase(Locale.ROOT),
-                        LinkedHashMap::new, Collectors.toList()));
-
-        var sb = new StringBuilder();
-        sb.append("# ").append(title).append("\n\n");
-
-        sb.append("## Summary\n");
-        sb.append("- This PR includes ").append(commits.size()).append(" commit")
-                .append(commits.size()==1? "" : "s").append(".\n\n");
-
-        sb.append("## Changes\n");
-        List<String> typeOrder = List.of("feat","fix","perf","refactor","docs","test","build","ci","chore","style","revert","other");
-        for (String t : typeOrder) {
-            var list = byType.getOrDefault(t, List.of());
-            if (list.isEmpty()) continue;
-            sb.append("### ").append(t).append("\n");
-            for (var c : list) {
-                var scope = (c.scope()==null || c.scope().isBlank()) ? "" : "(" + c.scope().trim() + ")";
-                var subject = Optional.ofNullable(c.subject()).orElse("").trim();
-                boolean breaking = c.breakingChange()!=null && !c.breakingChange().isBlank();
-
-                // Header line for this commit
-                sb.append("- ").append(t).append(scope);
-                if (breaking) sb.append("!");
-                sb.append(": ").append(subject).append("\n");
-
-                // BODY → bullets (preserve existing "- " bullets, otherwise add our own)
-                if (c.body()!=null && !c.body().isBlank()) {
-                    for (String line : c.body().strip().split("\\R+")) {
-                        var tline = line.trim();
-                        if (tline.isBlank()) continue;
-                        sb.append(tline.startsWith("- ") ? "  " + tline : "  - " + tline).append("\n");
-                    }
-                }
+        var renderer = new PrDescriptionRenderer();
+        if (commits != null) commits.forEach(renderer::accept);
+        return renderer.render();
+    }
 
-                // BREAKING (if any)
-                if (breaking) {
-                    sb.append("  - BREAKING: ").append(c.breakingChange().trim()).append("\n");
-                }
+    /** Parse {@code log} and stream the deterministic description to {@code out} without holding the commits. */
+    public void renderDeterministic(Reader log, Writer out) throws IOException {
+        var renderer = new PrDescriptionRenderer();
+        CommitLogParser.parse(log, renderer::accept);
+        renderer.writeTo(out);
+    }
 
-                // Issues (if any)
-                if (c.issues()!=null && !c.issues().isEmpty()) {
-                    sb.append("  - Issues: ").append(String.join(" ", c.issues())).append("\n");
-                }
+    /**
+     * Fold NDJSON – one {@link CommitMessage} object per line – into a renderer, pulling commits
+     * off a streaming parser one at a time, so neither an array nor the commits are ever held.
+     * Malformed input throws a {@link com.fasterxml.jackson.core.JsonProcessingException}, before
+     * the caller has written anything.
+     */
+    public PrDescriptionRenderer readNdjson(InputStream ndjson) throws IOException {
+        var renderer = new PrDescriptionRenderer();
+        try (MappingIterator<CommitMessage> commits = COMMIT_READER.readValues(ndjson)) {
+            while (commits.hasNextValue()) renderer.accept(commits.nextValue());
+        }
+        return renderer;
+    }
+
+    // ---------- incremental descriptions for long-lived PRs ----------
+
+    /** A commit as CI sends it: SHA and raw message ({@code git log --format=%B}). */
+    public record RawCommit(String sha, String message) {}
+
+    /**
+     * Add {@code newCommits} (newest first, as {@code git log} lists them) to what is stored for
+     * {@code pr} and render the description over all of the PR's commits. Only SHAs the store has
+     * never seen are parsed; ones the PR already lists are skipped, so re-sending is harmless.
+     */
+    public String describePr(String pr, List<RawCommit> newCommits) {
+        Map<String, CommitMessage> parsed = new LinkedHashMap<>();
+        for (RawCommit c : newCommits == null ? List.<RawCommit>of() : newCommits) {
+            if (c == null || c.sha() == null || c.sha().isBlank()) continue;
+            String sha = c.sha().strip();
+            if (parsed.containsKey(sha)) continue;
+            CommitMessage message = store.get(sha);
+            if (message == null) {
+                List<CommitMessage> one = parseCommitsFromLog(c.message());
+                if (one.isEmpty()) continue; // empty message – the full-log path skips these too
+                message = one.get(0);
             }
-            sb.append("\n");
+            parsed.put(sha, message);
         }
+        store.append(pr, parsed);
+
+        var renderer = new PrDescriptionRenderer();
+        store.forEach(pr, renderer::accept);
+        return renderer.render();
+    }
+
+    /** SHAs already stored for {@code pr}, newest first – CI sends only the others. */
+    public List<String> knownCommits(String pr) {
+        return store.shas(pr);
+    }
 
-        var breaking = commits.stream()
-                .map(CommitMessage::breakingChange)
-                .filter(Objects::nonNull).map(String::trim).filter(s -> !s.isBlank()).toList();
-        if (!breaking.isEmpty()) {
-            sb.append("## ⚠️ Breaking Changes\n");
-            breaking.forEach(b -> sb.append("- ").append(b).append("\n"));
-            sb.append("\n");
+    public void forgetPr(String pr) {
+        store.reset(pr);
+    }
+
+    /**
+     * Polish {@code markdown} with the model. Concurrent calls with the same description (after
+     * {@link #normalizeForPolish}) share one model call, e.g. when several CI runs of a PR race.
+     * Descriptions longer than {@code commit-ai.polish.chunk-chars} are polished section by section.
+     */
+    public String polishWithAi(String markdown) {
+        if (!models.available()) return markdown;
+        String key = CommitCache.key("pr-polish", normalizeForPolish(markdown));
+        String polished = inFlightPolish.run(key,
+                () -> markdown.length() > chunkChars ? polishChunked(markdown) : polishOnce(markdown));
+        return polished != null ? polished : markdown;
+    }
+
+    /** One model call; {@code null} when the caller should keep its unpolished markdown. */
+    private String polishOnce(String markdown) {
+        String prompt = polishPrompt(markdown);
+        try {
+            String polished = models.call("pr-polish", prompt);
+            if (polished == null || polished.isBlank()) {
+                metrics.polishFallback("empty");
+                return null;
+            }
+            return polished;
+        } catch (ModelBusyException busy) {
+            throw busy;
+        } catch (ModelUnavailableException open) {
+            metrics.polishFallback("circuit-open");
+            return null;
+        } catch (Exception e) {
+            log.warn("PR polish failed; returning the deterministic description", e);
+            metrics.polishFallback("error");
+            return null;
+        }
+    }
+
+    // ---------- chunked polish for large descriptions ----------
+
+    /**
+     * Map-reduce polish: every {@code ### type} section (cut into bullet-aligned chunks of at most
+     * {@code chunk-chars}) and the title/summary are polished in parallel, at most
+     * {@code parallelism} calls at a time, then stitched back together. Latency follows the
+     * largest chunk rather than the whole document. A chunk whose call fails keeps its original
+     * text; breaking changes, issues and the footer are kept verbatim.
+     */
+    private String polishChunked(String markdown) {
+        PrDescriptionSections doc = PrDescriptionSections.split(markdown, chunkChars);
+        if (doc == null) return polishOnce(markdown); // not the renderer's layout – one pass as before
+
+        Future<String> head;
+        List<List<Future<String>>> chunks = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(parallelism, Thread.ofVirtual().factory())) {
+            head = pool.submit(() -> polishHead(doc));
+            for (PrDescriptionSections.Section section : doc.sections) {
+                List<Future<String>> parts = new ArrayList<>();
+                for (String chunk : section.chunks()) {
+                    parts.add(pool.submit(() -> polishChunk(section.type(), chunk)));
+                }
+                chunks.add(parts);
+            }
+        } // close() waits for every task; none of them throws
+
+        List<List<String>> polished = new ArrayList<>();
+        for (List<Future<String>> parts : chunks) {
+            polished.add(parts.stream().map(Future::resultNow).toList());
         }
+        return PrDescriptionSections.join(head.resultNow(), doc.sections, polished, doc.tail);
+    }
 
-        var issues = commits.stream()
-                .flatMap(c -> c.issues()==null? Stream.<String>empty() : c.issues().stream())
-                .distinct().toList();
-        if (!issues.isEmpty()) {
-            sb.append("## Related Issues\n").append(String.join(" ", issues)).append("\n\n");
+    private String polishHead(PrDescriptionSections doc) {
+        if (doc.head.isBlank()) return doc.head;
+        StringBuilder outline = new StringBuilder();
+        for (PrDescriptionSections.Section s : doc.sections) {
+            outline.append("- ").append(s.type()).append(": ").append(s.bullets()).append(" change(s), e.g.\n");
+            String first = s.chunks().get(0);
+            int shown = 0;
+            for (String line : first.split("\n")) {
+                if (!line.startsWith("- ")) continue;
+                outline.append("  ").append(line).append('\n');
+                if (++shown == 3) break;
+            }
         }
+        String polished = polishPart("pr-polish-head", headPrompt(doc.head, outline.toString()),
+                p -> p.startsWith("# ") && p.contains("\n## Summary\n"));
+        return polished == null ? doc.head : polished + "\n\n";
+    }
 
-        sb.append("_Generated from Conventional Commit messages._\n");
-        return sb.toString();
+    private String polishChunk(String type, String bullets) {
+        String polished = polishPart("pr-polish-section", sectionPrompt(type, bullets), p -> p.startsWith("- "));
+        return polished == null ? bullets : polished + "\n";
     }
 
-    public String polishWithAi(String markdown) {
-        if (chat == null) return markdown;
+    /** One model call for a piece of the document; stripped reply, or {@code null} to keep the original. */
+    private String polishPart(String endpoint, String prompt, Predicate<String> looksRight) {
         try {
-            String prompt = """
+            String reply = models.call(endpoint, prompt);
+            String polished = reply == null ? "" : reply.strip();
+            if (polished.isEmpty()) {
+                metrics.polishFallback("section-empty");
+            } else if (!looksRight.test(polished)) {
+                metrics.polishFallback("section-invalid");
+            } else {
+                return polished;
+            }
+        } catch (ModelBusyException busy) {
+            metrics.polishFallback("section-busy");
+        } catch (ModelUnavailableException open) {
+            metrics.polishFallback("section-circuit-open");
+        } catch (Exception e) {
+            log.warn("Polishing part of a PR description failed; keeping it unpolished", e);
+            metrics.polishFallback("section-error");
+        }
+        return null;
+    }
+
+    /**
+     * Streaming variant of {@link #polishWithAi}: tokens go to {@code onToken} as they arrive and the
+     * final text to {@code onComplete}. On failure {@code onComplete} receives the unpolished markdown,
+     * which the client should show in place of any partial tokens. Dispose the handle to cancel.
+     */
+    public Disposable polishStreaming(String markdown, Consumer<String> onToken, Consumer<String> onComplete) {
+        if (!models.available()) {
+            onComplete.accept(markdown);
+            return Disposables.disposed();
+        }
+        String prompt = polishPrompt(markdown);
+        StringBuilder polished = new StringBuilder();
+        limiter.acquire(); // held until the stream terminates
+        return models.stream("pr-polish-stream", prompt)
+                .doFinally(signal -> limiter.release())
+                .subscribe(
+                        token -> { polished.append(token); onToken.accept(token); },
+                        e -> {
+                            if (e instanceof ModelUnavailableException) {
+                                metrics.polishFallback("circuit-open");
+                            } else {
+                                log.warn("PR polish stream failed; returning the deterministic description", e);
+                                metrics.polishFallback("error");
+                            }
+                            onComplete.accept(markdown);
+                        },
+                        () -> onComplete.accept(polished.toString()));
+    }
+
+    /** Line endings and trailing whitespace don't change what the model is asked. */
+    static String normalizeForPolish(String markdown) {
+        if (markdown == null) return "";
+        return markdown.replace("\r\n", "\n").strip();
+    }
+
+    private static String polishPrompt(String markdown) {
+        return """
         Improve clarity and tone of the following PR description, but keep the same sections and bullets.
         Do not add extra sections. Keep the title succinct.
 
@@ -116,79 +278,74 @@ public class PrDescriptionService {
         %s
         ---
         """.formatted(markdown);
-            return chat.prompt(prompt).call().content();
-        } catch (Exception e) {
-            return markdown;
-        }
     }
 
-    // --------- Parser for raw git log (no jq needed in CI) ----------
+    private static String headPrompt(String head, String outline) {
+        return """
+        Improve the title and summary of the following PR description. Keep the title succinct.
+        Reply with only the "# " title line and the "## Summary" section with its bullets.
+
+        ---
+        %s
+        ---
+
+        The changes, for context only:
+        %s
+        """.formatted(head.strip(), outline);
+    }
 
-    // Matches header: type(scope?): subject
-    private static final Pattern HEADER = Pattern.compile("^([a-z]+)(?:\\(([^)]+)\\))?!?:\\s*(.+)$");
-    private static final Pattern BREAKING = Pattern.compile("^BREAKING CHANGE:\\s*(.+)$", Pattern.CASE_INSENSITIVE);
-    private static final Pattern ISSUE = Pattern.compile("(?:(?:#\\d+)|(?:[A-Z]+-\\d+))");
+    private static String sectionPrompt(String type, String bullets) {
+        return """
+        Improve clarity and tone of these bullets from the "%s" section of a PR description.
+        Keep every bullet, its nesting and its order; keep scopes, issue keys and identifiers as they are.
+        Reply with the bullets only – no heading, no commentary.
+
+        ---
+        %s
+        ---
+        """.formatted(type, bullets);
+    }
+
+    // --------- Parser for raw git log (no jq needed in CI) ----------
 
     /** Parse commits from a block of messages separated by a line "----8<----". */
     public List<CommitMessage> parseCommitsFromLog(String raw) {
         if (raw == null || raw.isBlank()) return List.of();
-        String[] blocks = raw.split("(?m)^----8<----\\s*$");
         List<CommitMessage> out = new ArrayList<>();
-        for (String block : blocks) {
-            List<String> lines = Arrays.stream(block.strip().split("\\R")).toList();
-            if (lines.isEmpty()) continue;
-
-            String type=null, scope=null, subject=null, breaking=null;
-            StringBuilder body = new StringBuilder();
-
-            // header = first non-empty line
-            for (String line : lines) {
-                if (line.isBlank()) continue;
-                Matcher m = HEADER.matcher(line.trim());
-                if (m.matches()) {
-                    type = m.group(1);
-                    scope = m.group(2);
-                    subject = m.group(3);
-                    break;
-                } else {
-                    // Not conventional? Treat as subject-only
-                    subject = line.trim();
-                    type = (type==null ? "chore" : type);
-                    break;
-                }
-            }
-
-            // rest = body + trailers
-            for (String line : lines) {
-                if (line.startsWith("#")) continue; // skip comments
-                Matcher br = BREAKING.matcher(line);
-                if (br.find()) breaking = br.group(1).trim();
-                else body.append(line).append("\n");
-            }
-
-            // issues
-            Set<String> issues = new LinkedHashSet<>();
-            Matcher im = ISSUE.matcher(body.toString());
-            while (im.find()) issues.add(im.group());
-
-            String bodyStr = body.toString().strip();
-            out.add(new CommitMessage(
-                    type == null ? "chore" : type,
-                    scope,
-                    stripWrappingQuotes(subject),
-                    bodyStr.isBlank()? null : bodyStr,
-                    breaking,
-                    new ArrayList<>(issues))
-            );
+        try {
+            CommitLogParser.parse(new StringReader(raw), out::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for a StringReader
         }
         return out;
     }
 
+    /** Streaming variant: emits each commit to {@code sink} as soon as its delimiter is read. */
+    public void parseCommitsFromLog(Reader in, Consumer<CommitMessage> sink) throws IOException {
+        CommitLogParser.parse(in, sink);
+    }
+
     // ---------- small helpers ----------
 
-    /** Strip a single pair of wrapping single or double quotes. */
-    private static String stripWrappingQuotes(String s) {
-        if (s == null) return null;
-        return s.replaceAll("^(\"|')(.+)(\\1)$", "$2");
+    /**
+     * Strip a single pair of wrapping single or double quotes. Hand-rolled equivalent of
+     * {@code s.replaceAll("^(\"|')(.+)(\\1)$", "$2")}, which compiled a regex on every call.
+     */
+    static String stripWrappingQuotes(String s) {
+        if (s == null || s.length() < 3) return s;
+        char q = s.charAt(0);
+        if (q != '"' && q != '\'') return s;
+        // like '$', the closing quote may sit just before one final line terminator
+        int tail = s.endsWith("\r\n") ? 2 : isLineTerminator(s.charAt(s.length() - 1)) ? 1 : 0;
+        int close = s.length() - 1 - tail;
+        if (close < 2 || s.charAt(close) != q) return s;
+        for (int i = 1; i < close; i++) {
+            if (isLineTerminator(s.charAt(i))) return s; // '.' does not cross lines
+        }
+        return tail == 0 ? s.substring(1, close) : s.substring(1, close) + s.substring(close + 1);
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
     }
 }
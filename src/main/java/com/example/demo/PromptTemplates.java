@@ -0,0 +1,228 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prompt templates from {@code prompts/*.st}, compiled once into literal/slot segments so a
+ * render is a single pre-sized append pass.
+ * <p>
+ * Placeholders are written {@code <name>}; {@code \<} is a literal {@code <}. A template's
+ * version is a hash of its text, so anything keyed on it (e.g. {@link CommitCache}) changes
+ * exactly when the prompt does. Files in {@code commit-ai.prompts.dir} override the bundled ones,
+ * and any template backed by a file is re-read when that file changes – checked at most once per
+ * {@code commit-ai.prompts.reload-interval} – so prompts can be tuned without a restart.
+ */
+@Component
+public class PromptTemplates {
+
+    private static final Logger log = LoggerFactory.getLogger(PromptTemplates.class);
+    private static final String SUFFIX = ".st";
+
+    /** A compiled template: {@code literals[i]} is followed by slot {@code slots[i]}, with one trailing literal. */
+    public static final class Template {
+        private final String name;
+        private final String version;
+        private final String[] literals;
+        private final String[] slots;
+        private final int literalChars;
+
+        private Template(String name, String version, String[] literals, String[] slots) {
+            this.name = name;
+            this.version = version;
+            this.literals = literals;
+            this.slots = slots;
+            int n = 0;
+            for (String l : literals) n += l.length();
+            this.literalChars = n;
+        }
+
+        public String name() { return name; }
+
+        /** Short content hash of the template text. */
+        public String version() { return version; }
+
+        public String render(Map<String, String> values) {
+            int size = literalChars;
+            String[] resolved = new String[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                String v = values.get(slots[i]);
+                if (v == null) {
+                    throw new IllegalArgumentException("No value for <" + slots[i] + "> in prompt template '" + name + "'");
+                }
+                resolved[i] = v;
+                size += v.length();
+            }
+            StringBuilder out = new StringBuilder(size);
+            for (int i = 0; i < slots.length; i++) out.append(literals[i]).append(resolved[i]);
+            return out.append(literals[slots.length]).toString();
+        }
+    }
+
+    /** Where a template came from; {@code file} is null for templates inside a jar. */
+    private record Source(Template template, Path file, long modified, long checkedAt) {}
+
+    private final Path dir;
+    private final long reloadNanos;
+    private final Map<String, Source> current = new ConcurrentHashMap<>();
+    private final Map<String, Template> compiled = new ConcurrentHashMap<>(); // name@version → template
+
+    public PromptTemplates(@Value("${commit-ai.prompts.dir:}") String dir,
+                           @Value("${commit-ai.prompts.reload-interval:2s}") Duration reloadInterval) {
+        this.dir = dir.isBlank() ? null : Path.of(dir);
+        this.reloadNanos = reloadInterval.toNanos();
+        loadBundled();
+        if (this.dir != null && Files.isDirectory(this.dir)) {
+            try (var files = Files.list(this.dir)) {
+                files.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).forEach(this::loadFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not list prompt templates in " + this.dir, e);
+            }
+        }
+    }
+
+    /** The current version of template {@code name} ({@code prompts/<name>.st}). */
+    public Template get(String name) {
+        Source src = current.get(name);
+        if (src == null && dir != null && Files.isRegularFile(dir.resolve(name + SUFFIX))) {
+            src = loadFile(dir.resolve(name + SUFFIX)); // added after startup
+        }
+        if (src == null) throw new IllegalArgumentException("No prompt template '" + name + "'");
+        if (src.file() != null && reloadNanos > 0 && System.nanoTime() - src.checkedAt() >= reloadNanos) {
+            src = refresh(name, src);
+        }
+        return src.template();
+    }
+
+    // ---------- loading ----------
+
+    private void loadBundled() {
+        try {
+            for (Resource r : new PathMatchingResourcePatternResolver().getResources("classpath*:prompts/*" + SUFFIX)) {
+                String file = r.getFilename();
+                if (file == null) continue;
+                String name = file.substring(0, file.length() - SUFFIX.length());
+                Path path = r.isFile() ? r.getFile().toPath() : null; // exploded classpath (IDE, mvn spring-boot:run)
+                if (path != null) {
+                    load(name, path);
+                } else {
+                    try (InputStream in = r.getInputStream()) {
+                        String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                        current.put(name, new Source(compile(name, text), null, 0, System.nanoTime()));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load bundled prompt templates", e);
+        }
+    }
+
+    private Source loadFile(Path file) {
+        String f = file.getFileName().toString();
+        try {
+            return load(f.substring(0, f.length() - SUFFIX.length()), file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read prompt template " + file, e);
+        }
+    }
+
+    private Source load(String name, Path file) throws IOException {
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        Source src = new Source(compile(name, Files.readString(file)), file, modified, System.nanoTime());
+        current.put(name, src);
+        return src;
+    }
+
+    /** Re-read {@code src} if its file changed; a broken edit keeps the previous version. */
+    private Source refresh(String name, Source src) {
+        try {
+            long modified = Files.getLastModifiedTime(src.file()).toMillis();
+            if (modified == src.modified()) {
+                Source checked = new Source(src.template(), src.file(), modified, System.nanoTime());
+                current.put(name, checked);
+                return checked;
+            }
+            Source reloaded = load(name, src.file());
+            if (!reloaded.template().version().equals(src.template().version())) {
+                log.info("Reloaded prompt template '{}' (version {} → {})",
+                        name, src.template().version(), reloaded.template().version());
+            }
+            return reloaded;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not reload prompt template '{}' from {}; keeping version {}: {}",
+                    name, src.file(), src.template().version(), e.getMessage());
+            Source kept = new Source(src.template(), src.file(), src.modified(), System.nanoTime());
+            current.put(name, kept);
+            return kept;
+        }
+    }
+
+    // ---------- compiling ----------
+
+    private Template compile(String name, String text) {
+        String version = hash(text);
+        return compiled.computeIfAbsent(name + "@" + version, k -> parse(name, version, text));
+    }
+
+    static Template parse(String name, String version, String text) {
+        List<String> literals = new ArrayList<>(), slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\\' && text.startsWith("<", i + 1)) {
+                literal.append('<');
+                i += 2;
+                continue;
+            }
+            int end = c == '<' ? slotEnd(text, i + 1) : -1;
+            if (end < 0) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            literals.add(literal.toString());
+            literal.setLength(0);
+            slots.add(text.substring(i + 1, end));
+            i = end + 1;
+        }
+        literals.add(literal.toString());
+        return new Template(name, version, literals.toArray(String[]::new), slots.toArray(String[]::new));
+    }
+
+    /** Index of the {@code >} closing an identifier that starts at {@code from}, or -1. */
+    private static int slotEnd(String text, int from) {
+        if (from >= text.length() || !Character.isLetter(text.charAt(from))) return -1;
+        int i = from + 1;
+        while (i < text.length() && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_')) i++;
+        return i < text.length() && text.charAt(i) == '>' ? i : -1;
+    }
+
+    private static String hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing: while a call for some key is running, other callers with the same key
+ * wait for it and get its result (or its exception) instead of starting their own.
+ * Nothing is remembered once the call finishes – that is the cache's job.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Runnable onShared;
+
+    /** @param onShared run once for every caller that joined an existing call (e.g. a counter) */
+    public SingleFlight(Runnable onShared) {
+        this.onShared = onShared;
+    }
+
+    public V run(K key, Supplier<V> call) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            onShared.run();
+            return await(running);
+        }
+        try {
+            V value = call.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /** Calls currently running; for tests and gauges. */
+    public int size() { return inFlight.size(); }
+
+    private static <V> V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // rethrow what the leader saw, so followers fail the same way (e.g. 429 on ModelBusyException)
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw e;
+        }
+    }
+}
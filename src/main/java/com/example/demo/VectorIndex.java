@@ -0,0 +1,336 @@
+package com.example.demo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cosine-similarity index over float vectors, in one memory-mapped file (or on the heap when
+ * {@code file} is null), for a few hundred thousand vectors without an external vector database.
+ * <p>
+ * Every record is the vector (normalised) plus its signature in each of {@code tables} random
+ * hyperplane LSH tables ({@code bits} sign bits each). Up to {@code exactLimit} vectors a query
+ * scans everything; beyond that it scores only the vectors sharing a bucket with the query, or
+ * one bit away from it, in any table. Signatures are stored, so reopening only re-buckets them.
+ * Records are appended and never rewritten; the count in the header is bumped after the record
+ * is in place, so a crash mid-append loses only that record.
+ */
+public final class VectorIndex implements AutoCloseable {
+
+    /** A stored vector and its cosine similarity to the query. */
+    public record Hit(int id, float score) {}
+
+    private static final int MAGIC = 0x43564543; // "CVEC"
+    private static final int VERSION = 1;
+    // header: magic, version, dims, tables, bits, seed (long), count
+    private static final int DIMS = 8, TABLES = 12, BITS = 16, SEED = 20, COUNT = 28, HEADER = 32;
+
+    private final FileChannel channel; // null when in memory only
+    private final int exactLimit;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ByteBuffer data;
+    private int dims, tables, bits, count, recordBytes;
+    private long seed;
+    private float[][] planes; // tables * bits hyperplanes, generated from seed once dims is known
+    private List<Map<Integer, int[]>> buckets; // per table: signature → ids (first slot = size)
+
+    public VectorIndex(Path file, int tables, int bits, long seed, int exactLimit) {
+        this.exactLimit = exactLimit;
+        try {
+            if (file == null) {
+                channel = null;
+                data = order(ByteBuffer.allocate(HEADER + 64 * 1024));
+                writeHeader(tables, bits, seed);
+            } else {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                boolean fresh = channel.size() < HEADER;
+                data = order(channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), HEADER + 64 * 1024)));
+                if (fresh) writeHeader(tables, bits, seed);
+                else if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+                    throw new IllegalStateException(file + " is not a vector index");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open vector index " + file, e);
+        }
+        // an existing file keeps the LSH layout it was written with
+        this.dims = data.getInt(DIMS);
+        this.tables = data.getInt(TABLES);
+        this.bits = data.getInt(BITS);
+        this.seed = data.getLong(SEED);
+        this.buckets = new ArrayList<>(this.tables);
+        for (int t = 0; t < this.tables; t++) buckets.add(new HashMap<>());
+        if (dims > 0) {
+            layout(dims);
+            int stored = data.getInt(COUNT);
+            for (int id = 0; id < stored && base(id) + recordBytes <= data.capacity(); id++) {
+                for (int t = 0; t < this.tables; t++) bucket(t, data.getInt(offset(id) + 4 * t), id);
+                count = id + 1;
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int dimensions() { return dims; }
+
+    /** Store {@code vector}; returns its id (ids are dense, in insertion order). */
+    public int add(float[] vector) {
+        float[] v = normalised(vector);
+        lock.writeLock().lock();
+        try {
+            if (dims == 0) {
+                layout(v.length);
+                data.putInt(DIMS, dims);
+            } else if (v.length != dims) {
+                throw new IllegalArgumentException("Expected " + dims + " dimensions, got " + v.length);
+            }
+            int id = count;
+            ensureCapacity(base(id + 1));
+            int at = offset(id);
+            for (int t = 0; t < tables; t++) {
+                int sig = signature(v, t);
+                data.putInt(at + 4 * t, sig);
+                bucket(t, sig, id);
+            }
+            int floats = at + 4 * tables;
+            for (int i = 0; i < dims; i++) data.putFloat(floats + 4 * i, v[i]);
+            data.putInt(COUNT, ++count);
+            return id;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Up to {@code k} most similar stored vectors, best first. */
+    public List<Hit> nearest(float[] query, int k) {
+        float[] q = normalised(query);
+        lock.readLock().lock();
+        try {
+            if (count == 0 || k <= 0) return List.of();
+            if (q.length != dims) throw new IllegalArgumentException("Expected " + dims + " dimensions, got " + q.length);
+            TopK top = new TopK(k);
+            if (count <= exactLimit) {
+                for (int id = 0; id < count; id++) top.offer(id, dot(q, id));
+            } else {
+                BitSet seen = new BitSet(count);
+                for (int t = 0; t < tables; t++) {
+                    int sig = signature(q, t);
+                    probe(t, sig, q, seen, top);
+                    for (int b = 0; b < bits; b++) probe(t, sig ^ (1 << b), q, seen, top);
+                }
+            }
+            return top.hits();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** A copy of stored vector {@code id} (normalised). */
+    public float[] vector(int id) {
+        lock.readLock().lock();
+        try {
+            float[] v = new float[dims];
+            int floats = offset(id) + 4 * tables;
+            for (int i = 0; i < dims; i++) v[i] = data.getFloat(floats + 4 * i);
+            return v;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (channel == null) return;
+        lock.writeLock().lock();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close vector index", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---------- LSH ----------
+
+    private void layout(int dims) {
+        this.dims = dims;
+        this.recordBytes = 4 * (tables + dims);
+        Random random = new Random(seed);
+        planes = new float[tables * bits][dims];
+        for (float[] plane : planes) {
+            for (int i = 0; i < dims; i++) plane[i] = (float) random.nextGaussian();
+        }
+    }
+
+    private int signature(float[] v, int table) {
+        int sig = 0;
+        for (int b = 0; b < bits; b++) {
+            float[] plane = planes[table * bits + b];
+            float s = 0;
+            for (int i = 0; i < dims; i++) s += plane[i] * v[i];
+            if (s >= 0) sig |= 1 << b;
+        }
+        return sig;
+    }
+
+    private void bucket(int table, int sig, int id) {
+        Map<Integer, int[]> byTable = buckets.get(table);
+        int[] ids = byTable.get(sig);
+        if (ids == null || ids[0] + 1 == ids.length) {
+            ids = ids == null ? new int[4] : Arrays.copyOf(ids, ids.length * 2);
+            byTable.put(sig, ids);
+        }
+        ids[++ids[0]] = id;
+    }
+
+    private void probe(int table, int sig, float[] q, BitSet seen, TopK top) {
+        int[] ids = buckets.get(table).get(sig);
+        if (ids == null) return;
+        for (int i = 1; i <= ids[0]; i++) {
+            int id = ids[i];
+            if (seen.get(id)) continue;
+            seen.set(id);
+            top.offer(id, dot(q, id));
+        }
+    }
+
+    private float dot(float[] q, int id) {
+        int floats = offset(id) + 4 * tables;
+        float s = 0;
+        for (int i = 0; i < dims; i++) s += q[i] * data.getFloat(floats + 4 * i);
+        return s;
+    }
+
+    /** Smallest-first bounded heap of the best {@code k} hits seen so far. */
+    private static final class TopK {
+        final int[] ids;
+        final float[] scores;
+        int n;
+
+        TopK(int k) {
+            ids = new int[k];
+            scores = new float[k];
+        }
+
+        void offer(int id, float score) {
+            if (n < ids.length) {
+                ids[n] = id;
+                scores[n] = score;
+                siftUp(n++);
+            } else if (score > scores[0]) {
+                ids[0] = id;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        List<Hit> hits() {
+            Hit[] out = new Hit[n];
+            for (int i = 0; i < n; i++) out[i] = new Hit(ids[i], scores[i]);
+            Arrays.sort(out, (a, b) -> Float.compare(b.score(), a.score()));
+            return List.of(out);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0 && scores[(i - 1) / 2] > scores[i]) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int l = 2 * i + 1, r = l + 1, min = i;
+                if (l < n && scores[l] < scores[min]) min = l;
+                if (r < n && scores[r] < scores[min]) min = r;
+                if (min == i) return;
+                swap(i, min);
+                i = min;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int id = ids[a]; ids[a] = ids[b]; ids[b] = id;
+            float s = scores[a]; scores[a] = scores[b]; scores[b] = s;
+        }
+    }
+
+    // ---------- storage ----------
+
+    /** Where record {@code id} starts; a long, since {@code id * recordBytes} can pass 2 GB. */
+    private long base(int id) {
+        return HEADER + (long) id * recordBytes;
+    }
+
+    /** {@link #base} for a record that fits the buffer, i.e. a valid {@code int} index into it. */
+    private int offset(int id) {
+        long at = base(id);
+        if (at + recordBytes > Integer.MAX_VALUE) throw new IllegalStateException("Vector index is full (2 GB)");
+        return (int) at;
+    }
+
+    private void writeHeader(int tables, int bits, long seed) {
+        if (bits < 1 || bits > 30) throw new IllegalArgumentException("LSH bits must be 1–30, got " + bits);
+        data.putInt(0, MAGIC);
+        data.putInt(4, VERSION);
+        data.putInt(DIMS, 0);
+        data.putInt(TABLES, tables);
+        data.putInt(BITS, bits);
+        data.putLong(SEED, seed);
+        data.putInt(COUNT, 0);
+    }
+
+    private void ensureCapacity(long bytes) {
+        if (bytes <= data.capacity()) return;
+        if (bytes > Integer.MAX_VALUE) throw new IllegalStateException("Vector index is full (2 GB)");
+        long size = Math.min(Math.max(bytes, (long) data.capacity() * 2), Integer.MAX_VALUE);
+        if (channel == null) {
+            ByteBuffer bigger = order(ByteBuffer.allocate((int) size));
+            bigger.put(0, data, 0, data.capacity());
+            data = bigger;
+        } else {
+            try {
+                data = order(channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not grow vector index", e);
+            }
+        }
+    }
+
+    private static ByteBuffer order(ByteBuffer b) {
+        return b.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static float[] normalised(float[] v) {
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        float scale = norm == 0 ? 0 : (float) (1 / Math.sqrt(norm));
+        float[] out = new float[v.length];
+        for (int i = 0; i < v.length; i++) out[i] = v[i] * scale;
+        return out;
+    }
+}
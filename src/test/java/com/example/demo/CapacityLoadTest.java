@@ -0,0 +1,162 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Capacity of one instance against {@link StubOpenAiServer}: throughput and p50/p95/p99 latency per
+ * endpoint at increasing concurrency. Excluded from the normal build; run it with
+ * <pre>
+ * mvn -Ploadtest test -Dload.profile=typical -Dload.concurrency=1,4,16,64 -Dload.duration=10s
+ * </pre>
+ * The report is printed and written to {@code target/loadtest-report.md}. Settings
+ * ({@code -D…}): {@code load.profile} (instant, fast, typical, slow, flaky),
+ * {@code load.endpoints} (commit, pr-polish, pr), {@code load.concurrency}, {@code load.warmup},
+ * {@code load.duration}, and {@code load.distinct}: how many different requests to cycle through,
+ * 0 for all different (every commit request misses the cache).
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class CapacityLoadTest {
+
+    private static final StubOpenAiServer STUB = startStub();
+
+    @LocalServerPort
+    private int port;
+
+    private static StubOpenAiServer startStub() {
+        try {
+            return new StubOpenAiServer(StubOpenAiServer.Profile.named(System.getProperty("load.profile", "typical")));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void stubModel(DynamicPropertyRegistry registry) {
+        registry.add("loadtest.stub.port", STUB::port);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @Test
+    void capacity() throws Exception {
+        int[] levels = Arrays.stream(System.getProperty("load.concurrency", "1,4,16,64").split(","))
+                .map(String::strip).mapToInt(Integer::parseInt).toArray();
+        Duration warmup = duration("load.warmup", "3s"), measure = duration("load.duration", "10s");
+        int distinct = Integer.getInteger("load.distinct", 0);
+
+        Map<String, IntFunction<HttpRequest>> endpoints = new LinkedHashMap<>();
+        for (String name : System.getProperty("load.endpoints", "commit,pr-polish").split(",")) {
+            endpoints.put(name.strip(), request(name.strip(), distinct));
+        }
+
+        List<LoadDriver.Result> results = new ArrayList<>();
+        try (var driver = new LoadDriver()) {
+            for (var e : endpoints.entrySet()) {
+                for (int clients : levels) {
+                    results.add(driver.run(e.getKey(), e.getValue(), clients, warmup, measure));
+                }
+            }
+        }
+
+        String report = LoadDriver.report(STUB.profile(), measure, results);
+        System.out.println(report);
+        Path out = Path.of("target", "loadtest-report.md");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, report);
+
+        assertFalse(results.isEmpty());
+        assertTrue(STUB.requests() > 0, "no request reached the stub model");
+        for (var r : results) assertTrue(r.requests() > 0, "no requests completed for " + r.endpoint());
+    }
+
+    // ---------- requests ----------
+
+    private IntFunction<HttpRequest> request(String endpoint, int distinct) {
+        return switch (endpoint) {
+            case "commit" -> n -> post("/generate-commit", "application/json", commitRequest(variant(n, distinct)));
+            case "pr-polish" -> n -> post("/generate-pr-description-from-log?polish=true", "text/plain", gitLog(variant(n, distinct)));
+            case "pr" -> n -> post("/generate-pr-description-from-log", "text/plain", gitLog(variant(n, distinct)));
+            default -> throw new IllegalArgumentException("Unknown load endpoint '" + endpoint + "'");
+        };
+    }
+
+    private static int variant(int n, int distinct) {
+        return distinct > 0 ? n % distinct : n;
+    }
+
+    private HttpRequest post(String path, String contentType, String body) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                .timeout(Duration.ofSeconds(120))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String commitRequest(int n) {
+        // the file name varies too, so the similar-commit index cannot answer it as a duplicate
+        String file = "src/main/java/com/acme/OrderService" + n + ".java";
+        String diff = """
+                diff --git a/%1$s b/%1$s
+                @@ -10,6 +10,9 @@ public class OrderService {
+                +    public List<Order> page(int offset, int limit) {
+                +        return repository.findAll(offset, limit + %2$d);
+                +    }
+                """.formatted(file, n);
+        return """
+                {"repo":"acme","author":"dev","files":["%s"],"diff":%s}"""
+                .formatted(file, jsonString(diff));
+    }
+
+    /** A 20-commit {@code git log --format='%B%n----8<----'} whose last commit varies with {@code n}. */
+    private static String gitLog(int n) {
+        StringBuilder log = new StringBuilder(2048);
+        String[] types = {"feat", "fix", "refactor", "docs", "test"};
+        for (int i = 0; i < 20; i++) {
+            log.append(types[i % types.length]).append("(orders): change ").append(i)
+                    .append(i == 19 ? " of run " + n : "").append("\n\nDetails for change ").append(i)
+                    .append(".\n\nCloses #").append(100 + i).append("\n----8<----\n");
+        }
+        return log.toString();
+    }
+
+    private static String jsonString(String s) {
+        return '"' + s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + '"';
+    }
+
+    private static Duration duration(String property, String fallback) {
+        String v = System.getProperty(property, fallback).strip().toLowerCase(Locale.ROOT);
+        return v.endsWith("ms") ? Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)))
+                : v.endsWith("s") ? Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1)))
+                : Duration.ofSeconds(Long.parseLong(v));
+    }
+}
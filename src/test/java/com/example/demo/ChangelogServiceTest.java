@@ -0,0 +1,28 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** {@link ChangelogService}: issue references across one or several repositories. */
+class ChangelogServiceTest {
+
+    private final ChangelogService service = new ChangelogService();
+
+    @Test
+    void qualifiesRepoLocalIssuesOnlyWithSeveralRepos() {
+        String a = "fix: a\n\nFixes #12 and JIRA-7\n----8<----\n";
+        String b = "fix: b\n\nFixes #12, JIRA-7\n----8<----\n";
+
+        String md = service.build("Release", List.of(
+                new ChangelogService.RepoLog("api", "v1..v2", a),
+                new ChangelogService.RepoLog("web", "v3..v4", b),
+                new ChangelogService.RepoLog("api", "v2..v3", a)));
+        assertTrue(md.contains("## Related Issues\napi#12 JIRA-7 web#12\n"), md);
+
+        md = service.build("Release", List.of(new ChangelogService.RepoLog("api", "v1..v2", a)));
+        assertTrue(md.contains("## Related Issues\n#12 JIRA-7\n"), md);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.demo;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/** {@link CommitClassifier}: one row per rule outcome, plus diffs no rule may claim. */
+class CommitClassifierTest {
+
+    private static final String POM_BUMP = """
+            diff --git a/pom.xml b/pom.xml
+            --- a/pom.xml
+            +++ b/pom.xml
+            @@ -40,7 +40,7 @@
+                     <dependency>
+                         <groupId>com.fasterxml.jackson.core</groupId>
+                         <artifactId>jackson-databind</artifactId>
+            -            <version>2.17.0</version>
+            +            <version>2.17.1</version>
+                     </dependency>
+            """;
+
+    private static String rename(String from, String to, boolean withHunk) {
+        return "diff --git a/" + from + " b/" + to + "\n"
+                + (withHunk ? "similarity index 90%\n" : "similarity index 100%\n")
+                + "rename from " + from + "\nrename to " + to + "\n"
+                + (withHunk ? "@@ -1,1 +1,1 @@\n-class A {}\n+class B {}\n" : "");
+    }
+
+    private static String newFile(String path) {
+        return "diff --git a/" + path + " b/" + path + "\nnew file mode 100644\n--- /dev/null\n+++ b/" + path
+                + "\n@@ -0,0 +1,1 @@\n+class X {}\n";
+    }
+
+    /** case, files, diff, expected "type|scope|subject" or null for "goes to the model". */
+    static Stream<Arguments> rules() {
+        return Stream.of(
+                arguments("rename in place", List.of(), rename("src/A.java", "src/B.java", false),
+                        "refactor||rename A.java to B.java"),
+                arguments("move to another dir", List.of(), rename("src/a/A.java", "src/b/A.java", false),
+                        "refactor||move A.java to src/b"),
+                arguments("several moves", List.of(),
+                        rename("src/a/A.java", "lib/A.java", false) + rename("src/a/B.java", "lib/B.java", false),
+                        "refactor||move 2 files"),
+                arguments("new test file", List.of("src/test/java/com/acme/FooTest.java"),
+                        newFile("src/test/java/com/acme/FooTest.java"), "test||add tests for Foo"),
+                arguments("tests in one module", List.of("orders/src/test/java/ATest.java", "orders/src/test/java/BTest.java"),
+                        "", "test|orders|update 2 test files"),
+                arguments("go test", List.of("pkg/store/store_test.go"), "", "test|pkg|update tests for store"),
+                arguments("test class outside src/test", List.of("orders/FooTest.java", "orders/BarIT.java"), "",
+                        "test|orders|update 2 test files"),
+                arguments("one doc", List.of("README.md"), "", "docs||update README.md"),
+                arguments("several docs", List.of("docs/setup.adoc", "CHANGELOG.md"), "", "docs||update documentation"),
+                arguments("one workflow", List.of(".github/workflows/build.yml"), "", "ci||update build workflow"),
+                arguments("several CI files", List.of(".github/workflows/build.yml", ".gitlab-ci.yml"), "",
+                        "ci||update CI workflows"),
+                arguments("dependency bump", List.of("pom.xml"), POM_BUMP, "build|deps|bump jackson-databind to 2.17.1"),
+                arguments("property bump", List.of("pom.xml"),
+                        "--- a/pom.xml\n+++ b/pom.xml\n@@ -9 +9 @@\n-    <jackson.version>2.17.0</jackson.version>\n"
+                                + "+    <jackson.version>2.17.1</jackson.version>\n",
+                        "build|deps|bump jackson to 2.17.1"),
+                arguments("two bumps", List.of("pom.xml"),
+                        POM_BUMP + "@@ -9 +9 @@\n-    <java.version>17</java.version>\n+    <java.version>21</java.version>\n",
+                        "build|deps|bump 2 versions in pom.xml"),
+
+                // no rule applies
+                arguments("pom with more than versions", List.of("pom.xml"),
+                        POM_BUMP + "+            <scope>test</scope>\n", null),
+                arguments("pom without changes", List.of("pom.xml"), "", null),
+                arguments("rename with edits", List.of(), rename("src/A.java", "src/B.java", true), null),
+                arguments("code and its test", List.of("src/main/java/Foo.java", "src/test/java/FooTest.java"), "", null),
+                arguments("docs and code", List.of("README.md", "src/main/java/Foo.java"), "", null),
+                arguments("plain source", List.of("src/main/java/Foo.java"), "+int x;\n", null),
+                arguments("Latest.java", List.of("src/main/java/Latest.java"), "", null),
+                arguments("Contest.java", List.of("app/Contest.java"), "", null),
+                arguments("Attest.java", List.of("Attest.java"), "", null),
+                arguments("Protest.java", List.of("lib/Protest.java"), "", null),
+                arguments("Manifest.kt", List.of("app/Manifest.kt"), "", null),
+                arguments("Audit.java", List.of("app/Audit.java"), "", null),
+                arguments("nothing", List.of(), "", null),
+                arguments("nulls", null, null, null));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("rules")
+    void classifies(String name, List<String> files, String diff, String expected) {
+        CommitMessage m = CommitClassifier.classify(files, diff);
+        String actual = m == null ? null
+                : m.type() + "|" + (m.scope() == null ? "" : m.scope()) + "|" + m.subject();
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** {@link CommitExamples} with a stub {@link EmbeddingModel}. */
+class CommitExamplesTest {
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ModelCallLimiter limiter = new ModelCallLimiter(4, 4, Duration.ofSeconds(1));
+    private final ModelMetrics metrics = new ModelMetrics(registry, limiter);
+    private final AtomicInteger embedded = new AtomicInteger();
+    private final ModelClient models = new ModelClient(null, limiter, metrics,
+            new ModelClient.Policy(Duration.ofSeconds(5), Map.of("embed-diff", Duration.ofMillis(100)), 0,
+                    Duration.ofMillis(10), Duration.ofMillis(50), Duration.ZERO),
+            4, 4, 0.5, Duration.ofSeconds(30));
+
+    private CommitExamples examples(EmbeddingModel model) {
+        return new CommitExamples(model, models, metrics, registry, true, "", 3, 0.8, 0.97, 8, 12);
+    }
+
+    private CommitExamples persistent() {
+        return new CommitExamples(byFiles(), models, metrics, registry, true, dir.toString(), 3, 0.8, 0.97, 8, 12);
+    }
+
+    /** Diffs of A.java and of B.java are orthogonal; adding a "+y" line keeps a diff similar but not a duplicate. */
+    private static EmbeddingModel byFiles() {
+        EmbeddingModel model = mock(EmbeddingModel.class);
+        when(model.embed(anyString())).thenAnswer(inv -> {
+            String summary = inv.getArgument(0);
+            return new float[] {summary.contains("A.java") ? 1 : 0, summary.contains("B.java") ? 1 : 0,
+                    summary.contains("+y") ? 0.5f : 0};
+        });
+        return model;
+    }
+
+    private static CommitMessage msg(String subject) {
+        return new CommitMessage("fix", null, subject, null, null, List.of());
+    }
+
+    /** An embedding model that takes {@code millis} per call and fails if {@code fail}. */
+    private EmbeddingModel stub(long millis, boolean fail) {
+        EmbeddingModel model = mock(EmbeddingModel.class);
+        when(model.embed(anyString())).thenAnswer(inv -> {
+            embedded.incrementAndGet();
+            Thread.sleep(millis);
+            if (fail) throw new IllegalStateException("embedding error");
+            return new float[] {1, 0, 0};
+        });
+        return model;
+    }
+
+    @Test
+    void remembersMessagesAndReloadsThem() throws IOException {
+        List<String> a = List.of("src/A.java"), b = List.of("src/B.java");
+        CommitExamples examples = persistent();
+
+        CommitExamples.Lookup first = examples.lookup(a, "+x\n");
+        assertEquals(List.of(), first.similar());
+        examples.remember(first, msg("fix A"));
+
+        assertEquals(msg("fix A"), examples.lookup(a, "+x\n").duplicate());
+        CommitExamples.Lookup close = examples.lookup(a, "+x\n+y\n");
+        assertNull(close.duplicate());
+        assertEquals(List.of(msg("fix A")), close.similar().stream().map(CommitExamples.Example::message).toList());
+        assertEquals(List.of(), examples.lookup(b, "+x\n").similar());
+        examples.close();
+
+        Path jsonl = dir.resolve("examples.jsonl");
+        String clean = Files.readString(jsonl);
+        CommitExamples reopened = persistent();
+        reopened.close();
+        assertEquals(clean, Files.readString(jsonl), "a reopen must not add blank lines");
+
+        // a crash mid-write leaves a torn line behind
+        Files.writeString(jsonl, "{\"id\":1,\"fil", StandardOpenOption.APPEND);
+        reopened = persistent();
+        assertEquals(1, reopened.size());
+        assertEquals(msg("fix A"), reopened.lookup(a, "+x\n").duplicate());
+        reopened.remember(reopened.lookup(b, "+x\n"), msg("fix B"));
+        reopened.close();
+
+        CommitExamples again = persistent();
+        assertEquals(2, again.size());
+        assertEquals(msg("fix B"), again.lookup(b, "+x\n").duplicate());
+        again.close();
+    }
+
+    @Test
+    void slowEmbeddingFindsNothingAtTheDeadline() {
+        CommitExamples examples = examples(stub(2_000, false));
+
+        long start = System.nanoTime();
+        assertSame(CommitExamples.Lookup.NONE, examples.lookup(List.of("src/A.java"), "+x\n"));
+        assertTrue(System.nanoTime() - start < 1_000_000_000L, "should give up at the embed-diff deadline");
+        assertEquals(1, registry.counter("commit.examples.lookups", "result", "error").count());
+    }
+
+    @Test
+    void openCircuitSkipsTheEmbeddingModel() {
+        CommitExamples examples = examples(stub(0, true));
+
+        for (int i = 0; i < 4; i++) assertSame(CommitExamples.Lookup.NONE, examples.lookup(List.of("a"), "+x\n"));
+        assertEquals(CircuitBreaker.State.OPEN, models.circuitState());
+        assertSame(CommitExamples.Lookup.NONE, examples.lookup(List.of("a"), "+x\n"));
+        assertEquals(4, embedded.get());
+    }
+}
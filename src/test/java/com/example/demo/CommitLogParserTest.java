@@ -0,0 +1,81 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/** {@link CommitLogParser} on {@code git log --format='%B%n----8<----'} output. */
+class CommitLogParserTest {
+
+    private static List<CommitMessage> parse(String log) throws IOException {
+        List<CommitMessage> out = new ArrayList<>();
+        CommitLogParser.parse(new StringReader(log), out::add);
+        return out;
+    }
+
+    @Test
+    void splitsOnDelimiterLines() throws IOException {
+        List<CommitMessage> commits = parse("""
+                feat(api): add paging
+                ----8<----
+                fix: handle empty page \t
+                ----8<----  \t
+                not a ----8<---- delimiter
+                ----8<----
+                """);
+
+        assertEquals(3, commits.size());
+        assertEquals(new CommitMessage("feat", "api", "add paging", "feat(api): add paging", null, List.of()),
+                commits.get(0));
+        assertEquals("fix", commits.get(1).type());
+        assertEquals("handle empty page", commits.get(1).subject());
+        assertEquals("chore", commits.get(2).type());
+        assertEquals("not a ----8<---- delimiter", commits.get(2).subject());
+    }
+
+    @Test
+    void skipsBlankBlocks() throws IOException {
+        List<CommitMessage> commits = parse("----8<----\n\n  \n----8<----\ndocs: readme\n----8<----\n----8<----\n");
+
+        assertEquals(1, commits.size());
+        assertEquals("docs", commits.get(0).type());
+        assertEquals(List.of(), parse(""));
+    }
+
+    @Test
+    void readsTrailersAndIssues() throws IOException {
+        CommitMessage c = parse("""
+                refactor(store)!: "split the log"
+
+                Moves replay into its own class. Fixes #12 and JIRA-7, see #12 again.
+                # a comment line, ignored
+                breaking change:   replay() is now package-private \s
+                ----8<----
+                """).get(0);
+
+        assertEquals("refactor", c.type());
+        assertEquals("store", c.scope());
+        assertEquals("split the log", c.subject());
+        assertEquals("replay() is now package-private", c.breakingChange());
+        assertEquals(List.of("#12", "JIRA-7"), c.issues());
+        assertEquals("refactor(store)!: \"split the log\"\n\nMoves replay into its own class. Fixes #12 and JIRA-7, see #12 again.",
+                c.body());
+    }
+
+    @Test
+    void everyLineBreakEndsALine() throws IOException {
+        CommitMessage c = parse("fix: a\r\nbody\u2028BREAKING CHANGE: b\u0085see #3\fmore\u000Bend\r----8<----\r").get(0);
+
+        assertEquals("a", c.subject());
+        assertEquals("b", c.breakingChange());
+        assertEquals(List.of("#3"), c.issues());
+        assertEquals("fix: a\nbody\nsee #3\nmore\nend", c.body());
+        assertNull(parse("chore: x").get(0).breakingChange());
+    }
+}
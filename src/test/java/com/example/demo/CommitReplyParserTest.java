@@ -0,0 +1,86 @@
+package com.example.demo;
+
+import com.example.demo.ModelMetrics.ParseOutcome;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/** {@link CommitReplyParser} on model replies with and without prose around the JSON. */
+class CommitReplyParserTest {
+
+    private static final String FIX = "{\"type\":\"fix\",\"subject\":\"handle empty page\"}";
+
+    @Test
+    void wholeReplyIsDirect() {
+        CommitReplyParser.Parsed p = CommitReplyParser.parse("  \n" + FIX + "\n");
+
+        assertEquals(ParseOutcome.DIRECT, p.outcome());
+        assertEquals(new CommitMessage("fix", null, "handle empty page", null, null, null), p.message());
+    }
+
+    @Test
+    void objectInFencesOrProseIsRescued() {
+        CommitReplyParser.Parsed p = CommitReplyParser.parse("""
+                Sure! Here is {your} commit:
+                ```json
+                {"type": "feat", "scope": "api", "subject": "add paging",
+                 "issues": "#12", "extra": {"nested": [1, 2]}}
+                ```
+                Let me know if you need anything else.""");
+
+        assertEquals(ParseOutcome.RESCUED, p.outcome());
+        assertEquals(new CommitMessage("feat", "api", "add paging", null, null, List.of("#12")), p.message());
+    }
+
+    @Test
+    void bracesAndEscapedQuotesInsideStrings() {
+        CommitReplyParser.Parsed p = CommitReplyParser.parse(
+                "{\"type\":\"fix\",\"subject\":\"close } in \\\"map {\\\" literal\",\"body\":\"a\\\\\",\"scope\":\"}\"}");
+
+        assertEquals(ParseOutcome.DIRECT, p.outcome());
+        assertEquals("close } in \"map {\" literal", p.message().subject());
+        assertEquals("a\\", p.message().body());
+        assertEquals("}", p.message().scope());
+    }
+
+    @Test
+    void firstUsableOfSeveralObjectsWins() {
+        String reply = "{\"type\":\"wip\",\"subject\":\"x\"} then {not json} then " + FIX
+                + " or {\"type\":\"feat\",\"subject\":\"later\"}";
+        CommitReplyParser.Parsed p = CommitReplyParser.parse(reply);
+
+        assertEquals(ParseOutcome.RESCUED, p.outcome());
+        assertEquals("handle empty page", p.message().subject());
+
+        // an unclosed brace in the lead-in does not hide the object after it
+        assertEquals("handle empty page", CommitReplyParser.parse("{ oops " + FIX).message().subject());
+    }
+
+    @Test
+    void objectsWithoutAUsableTypeOrSubjectAreInvalid() {
+        for (String reply : List.of(
+                "{\"type\":\"wip\",\"subject\":\"x\"}",
+                "{\"type\":\"other\",\"subject\":\"x\"}",
+                "{\"type\":\"fix\",\"subject\":\"   \"}",
+                "{\"type\":\"fix\",\"subject\":\"" + "x".repeat(CommitReplyParser.MAX_SUBJECT_CHARS + 1) + "\"}",
+                "{\"type\":\"fix\",\"subject\":{\"text\":\"x\"}}",
+                "{\"type\":\"fix\"}",
+                "{\"subject\":\"x\"}")) {
+            CommitReplyParser.Parsed p = CommitReplyParser.parse(reply);
+            assertEquals(ParseOutcome.INVALID, p.outcome(), reply);
+            assertNull(p.message(), reply);
+        }
+    }
+
+    @Test
+    void repliesWithoutJsonFail() {
+        for (String reply : new String[] {null, "", "fix: handle empty page", "{not json}", "{\"type\":\"fix\""}) {
+            CommitReplyParser.Parsed p = CommitReplyParser.parse(reply);
+            assertEquals(ParseOutcome.FAILED, p.outcome(), reply);
+            assertNull(p.message(), reply);
+        }
+    }
+}
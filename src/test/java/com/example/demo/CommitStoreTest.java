@@ -0,0 +1,131 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** {@link CommitStore}: replay from its JSON-lines files, and the PR bound. */
+class CommitStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private CommitStore open(int maxPrs) {
+        return new CommitStore(dir.toString(), maxPrs, new SimpleMeterRegistry());
+    }
+
+    private static CommitMessage msg(String subject) {
+        return new CommitMessage("feat", null, subject, null, null, List.of());
+    }
+
+    /** SHA → message, newest first. */
+    private static Map<String, CommitMessage> batch(String... shas) {
+        Map<String, CommitMessage> out = new LinkedHashMap<>();
+        for (String sha : shas) out.put(sha, msg("subject " + sha));
+        return out;
+    }
+
+    private static List<String> subjects(CommitStore store, String pr) {
+        List<String> out = new ArrayList<>();
+        store.forEach(pr, c -> out.add(c.subject()));
+        return out;
+    }
+
+    @Test
+    void replaysAfterRestart() throws IOException {
+        CommitStore store = open(100);
+        store.append("acme#1", batch("b2", "b1"));
+        store.append("acme#1", batch("b3", "b2")); // b2 again: ignored
+        store.append("acme#2", batch("c1"));
+        store.reset("acme#2");
+        store.append("acme#2", batch("c2", "c1")); // after a force-push, c1 is listed again
+        store.close();
+        // a crash mid-write leaves a torn line behind
+        Files.writeString(dir.resolve("prs.jsonl"), "{\"pr\":\"acme#3\",\"sha", StandardOpenOption.APPEND);
+
+        CommitStore reopened = open(100);
+        assertEquals(List.of("b3", "b2", "b1"), reopened.shas("acme#1"));
+        assertEquals(List.of("subject b3", "subject b2", "subject b1"), subjects(reopened, "acme#1"));
+        assertEquals(List.of("c2", "c1"), reopened.shas("acme#2"));
+        assertEquals(msg("subject c1"), reopened.get("c1"));
+        assertEquals(2, reopened.prCount());
+        assertEquals(5, reopened.commitCount());
+
+        reopened.append("acme#3", batch("d1")); // appends after the torn line still replay
+        reopened.close();
+        assertEquals(List.of("d1"), open(100).shas("acme#3"));
+    }
+
+    @Test
+    void keepsOnlyTheMostRecentlyUsedPrs() {
+        CommitStore store = open(2);
+        store.append("pr-1", batch("shared", "a"));
+        store.append("pr-2", batch("shared", "b"));
+        store.shas("pr-1"); // pr-1 used more recently than pr-2
+        store.append("pr-3", batch("c"));
+
+        assertEquals(2, store.prCount());
+        assertEquals(List.of(), store.shas("pr-2"));
+        assertNull(store.get("b"), "commits only the evicted PR listed are dropped");
+        assertEquals(msg("subject shared"), store.get("shared"));
+        assertEquals(3, store.commitCount()); // shared, a, c
+        store.close();
+
+        CommitStore reopened = open(2);
+        assertEquals(2, reopened.prCount());
+        assertEquals(List.of("shared", "a"), reopened.shas("pr-1"));
+        assertNull(reopened.get("b"));
+    }
+
+    @Test
+    void compactsTheFilesToTheLiveState() throws IOException {
+        CommitStore store = open(2);
+        for (int i = 0; i < 20; i++) store.append("pr-" + i, batch("a" + i, "b" + i));
+        store.close();
+        long commitsBefore = Files.size(dir.resolve("commits.jsonl")), prsBefore = Files.size(dir.resolve("prs.jsonl"));
+
+        CommitStore reopened = open(2); // 18 PRs and 36 commits were evicted
+        assertEquals(4, Files.readAllLines(dir.resolve("commits.jsonl")).size());
+        assertEquals(2, Files.readAllLines(dir.resolve("prs.jsonl")).size());
+        assertTrue(Files.size(dir.resolve("commits.jsonl")) < commitsBefore / 4);
+        assertTrue(Files.size(dir.resolve("prs.jsonl")) < prsBefore / 10);
+        assertEquals(List.of("a19", "b19"), reopened.shas("pr-19"));
+        assertEquals(List.of("a18", "b18"), reopened.shas("pr-18"));
+
+        // while running, once the dead lines pass the slack
+        for (int i = 20; i < 20 + CommitStore.COMPACT_SLACK; i++) reopened.append("pr-" + i, batch("c" + i));
+        assertTrue(Files.readAllLines(dir.resolve("prs.jsonl")).size() < CommitStore.COMPACT_SLACK);
+        reopened.close();
+
+        CommitStore again = open(2);
+        assertEquals(2, again.prCount());
+        assertEquals(2, again.commitCount());
+        int last = 19 + CommitStore.COMPACT_SLACK;
+        assertEquals(List.of("c" + last), again.shas("pr-" + last));
+        again.close();
+    }
+
+    @Test
+    void resetDropsCommitsNoOtherPrLists() {
+        CommitStore store = new CommitStore("", 10, new SimpleMeterRegistry());
+        store.append("pr-1", batch("x", "y"));
+        store.append("pr-2", batch("x"));
+        store.reset("pr-1");
+
+        assertEquals(msg("subject x"), store.get("x"));
+        assertNull(store.get("y"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** {@link DiffCondenser} on small hand-written git diffs. */
+class DiffCondenserTest {
+
+    private static String file(String path, String... hunks) {
+        StringBuilder sb = new StringBuilder()
+                .append("diff --git a/").append(path).append(" b/").append(path).append('\n')
+                .append("index 1111111..2222222 100644\n")
+                .append("--- a/").append(path).append('\n')
+                .append("+++ b/").append(path).append('\n');
+        for (String h : hunks) sb.append(h);
+        return sb.toString();
+    }
+
+    /** A hunk at {@code line} adding {@code n} numbered lines. */
+    private static String hunk(int line, int n) {
+        StringBuilder sb = new StringBuilder("@@ -" + line + ",1 +" + line + "," + (n + 1) + " @@\n context\n");
+        for (int i = 0; i < n; i++) sb.append("+        int value").append(line).append('_').append(i).append(" = ").append(i).append(";\n");
+        return sb.toString();
+    }
+
+    @Test
+    void smallDiffOnlyLosesIndexLines() {
+        String diff = file("src/App.java", hunk(10, 3));
+        DiffCondenser.Condensed condensed = DiffCondenser.condense(diff, 10_000);
+
+        assertEquals(diff.replace("index 1111111..2222222 100644\n", ""), condensed.diff());
+        assertFalse(condensed.cut(), "dropping index lines is not a cut");
+    }
+
+    @Test
+    void omitsLockfilesGeneratedAndVendoredFiles() {
+        String diff = file("src/App.java", hunk(1, 2))
+                + file("web/package-lock.json", hunk(1, 40))
+                + file("api/src/generated/Model.java", hunk(1, 40))
+                + file("vendor/lib/x.go", hunk(1, 40));
+        DiffCondenser.Condensed condensed = DiffCondenser.condense(diff, 10_000);
+        String out = condensed.diff();
+
+        assertTrue(condensed.cut());
+        assertTrue(out.contains("+        int value1_1 = 1;"), out);
+        assertFalse(out.contains("diff --git a/web/package-lock.json"), out);
+        assertTrue(out.contains("# Omitted from this diff:\n"
+                + "- web/package-lock.json (lockfile, +40/-0)\n"
+                + "- api/src/generated/Model.java (generated, +40/-0)\n"
+                + "- vendor/lib/x.go (vendored, +40/-0)\n"), out);
+    }
+
+    @Test
+    void dropsReindentedAndRewrappedHunksButNotJoinedWords() {
+        String reindent = "@@ -1,2 +1,2 @@\n-if (x) {\n-  run(a, b);\n+if (x) {\n+    run(a,\n+        b);\n";
+        String joined = "@@ -9,1 +9,1 @@\n-    String s = \"foo bar\";\n+    String s = \"foobar\";\n";
+
+        String out = DiffCondenser.condense(file("src/A.java", reindent) + file("src/B.java", joined), 10_000).diff();
+
+        assertFalse(out.contains("run(a, b);"), out);
+        assertTrue(out.contains("- src/A.java (whitespace only, +3/-2)"), out);
+        assertTrue(out.contains("+    String s = \"foobar\";"), out);
+    }
+
+    @Test
+    void cutsLargeFilesAtHunkBoundaries() {
+        String small = file("src/Small.java", hunk(1, 2));
+        String large = file("src/Large.java", hunk(10, 12), hunk(100, 12), hunk(200, 12));
+        int budget = small.length() + large.length() / 2;
+
+        DiffCondenser.Condensed condensed = DiffCondenser.condense(small + large, budget);
+        String out = condensed.diff();
+
+        assertTrue(condensed.cut());
+        assertTrue(out.length() <= budget, out.length() + " > " + budget);
+        assertTrue(out.contains("+        int value1_1 = 1;"), out); // small file whole
+        assertTrue(out.contains("+        int value10_11 = 11;"), out); // first hunk whole
+        assertFalse(out.contains("@@ -100,1"), out); // second hunk not started
+        assertTrue(out.contains("[… rest of src/Large.java omitted: +24/-0 lines]"), out);
+    }
+
+    @Test
+    void cutsInsideTheFirstHunkOnlyWhenNothingElseFits() {
+        String large = file("src/Large.java", hunk(10, 60));
+        String out = DiffCondenser.condense(large, large.length() / 2).diff();
+
+        assertTrue(out.contains("+        int value10_0 = 0;"), out);
+        assertFalse(out.contains("value10_59"), out);
+        assertTrue(out.matches("(?s).*\\[… rest of src/Large.java omitted: \\+\\d+/-0 lines]\n"), out);
+    }
+}
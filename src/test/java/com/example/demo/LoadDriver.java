@@ -0,0 +1,125 @@
+package com.example.demo;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Closed-loop load generator: {@code concurrency} virtual-thread clients each send a request, wait
+ * for the answer and send the next, for {@code warmup} plus {@code measure}. Only requests started
+ * inside the measurement window count, so throughput and latency are not skewed by ramp-up.
+ */
+final class LoadDriver implements AutoCloseable {
+
+    /** One endpoint at one concurrency level; latencies in milliseconds, successful requests only. */
+    record Result(String endpoint, int concurrency, long requests, long errors, Map<Integer, Long> statuses,
+                  double throughput, double p50, double p95, double p99, double max) {}
+
+    private final ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(clients)
+            .build();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /** {@code request} gets a sequence number that is unique across runs, e.g. to defeat caches. */
+    Result run(String endpoint, IntFunction<HttpRequest> request, int concurrency, Duration warmup, Duration measure)
+            throws InterruptedException {
+        long from = System.nanoTime() + warmup.toNanos(), to = from + measure.toNanos();
+        List<Client> workers = new ArrayList<>(concurrency);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                Client c = new Client();
+                workers.add(c);
+                pool.submit(() -> c.loop(request, from, to));
+            }
+        }
+
+        long[] all = workers.stream().flatMapToLong(c -> Arrays.stream(c.latencies, 0, c.count)).sorted().toArray();
+        Map<Integer, Long> statuses = new TreeMap<>();
+        long errors = 0;
+        for (Client c : workers) {
+            errors += c.errors;
+            c.statuses.forEach((k, v) -> statuses.merge(k, v, Long::sum));
+        }
+        double seconds = measure.toNanos() / 1e9;
+        return new Result(endpoint, concurrency, all.length + errors, errors, statuses, all.length / seconds,
+                percentile(all, 50), percentile(all, 95), percentile(all, 99), all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+    }
+
+    /** Nearest-rank percentile in milliseconds. */
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    private final class Client {
+        long[] latencies = new long[256];
+        int count;
+        long errors;
+        final Map<Integer, Long> statuses = new TreeMap<>(); // non-2xx; -1 = I/O error
+
+        void loop(IntFunction<HttpRequest> request, long from, long to) {
+            long start;
+            while ((start = System.nanoTime()) < to) {
+                int status;
+                try {
+                    status = http.send(request.apply(sequence.getAndIncrement()), HttpResponse.BodyHandlers.discarding())
+                            .statusCode();
+                } catch (IOException e) {
+                    status = -1;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long took = System.nanoTime() - start;
+                if (start < from) continue; // warm-up
+                if (status >= 200 && status < 300) {
+                    if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+                    latencies[count++] = took;
+                } else {
+                    errors++;
+                    statuses.merge(status, 1L, Long::sum);
+                }
+            }
+        }
+    }
+
+    /** Markdown table of {@code results}, one row per endpoint and concurrency level. */
+    static String report(StubOpenAiServer.Profile profile, Duration measure, List<Result> results) {
+        StringBuilder out = new StringBuilder(1024);
+        out.append("## Load test – stub profile `").append(profile.name()).append("` (first token ")
+                .append(profile.latency().toMillis()).append(" ± ").append(profile.jitter().toMillis()).append(" ms, ")
+                .append(profile.tokensPerSecond() > 0 ? (int) profile.tokensPerSecond() + " tokens/s" : "instant tokens")
+                .append(profile.errorRate() > 0 ? ", " + (int) (profile.errorRate() * 100) + "% errors" : "")
+                .append("), ").append(measure.toSeconds()).append(" s per level\n\n");
+        out.append("| endpoint | clients | requests | req/s | p50 ms | p95 ms | p99 ms | max ms | errors |\n");
+        out.append("|---|---:|---:|---:|---:|---:|---:|---:|---|\n");
+        for (Result r : results) {
+            out.append(String.format(Locale.ROOT, "| %s | %d | %d | %.1f | %.0f | %.0f | %.0f | %.0f | %s |%n",
+                    r.endpoint(), r.concurrency(), r.requests(), r.throughput(), r.p50(), r.p95(), r.p99(), r.max(),
+                    r.errors() == 0 ? "0" : r.errors() + " " + r.statuses()));
+        }
+        return out.toString();
+    }
+
+    @Override
+    public void close() {
+        http.close();
+        clients.close();
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** {@link ModelClient} against a stub {@link ChatClient} whose replies are scripted per call. */
+class ModelClientTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ModelCallLimiter limiter = new ModelCallLimiter(4, 4, Duration.ofSeconds(1));
+    private final ModelMetrics metrics = new ModelMetrics(registry, limiter);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    /** A model whose n-th call (from 0) sleeps {@code delays[n]} ms, then fails if {@code failures[n]}. */
+    private ChatClient stub(long[] delays, boolean[] failures) {
+        ChatClient chat = mock(ChatClient.class, RETURNS_DEEP_STUBS);
+        when(chat.prompt(anyString()).call().content()).thenAnswer(inv -> {
+            int n = calls.getAndIncrement();
+            Thread.sleep(delays[Math.min(n, delays.length - 1)]);
+            if (failures[Math.min(n, failures.length - 1)]) throw new IllegalStateException("model error " + n);
+            return "reply " + n;
+        });
+        return chat;
+    }
+
+    private ModelClient client(ChatClient chat, Duration deadline, int retries, Duration hedgeAfter) {
+        var policy = new ModelClient.Policy(deadline, Map.of(), retries,
+                Duration.ofMillis(10), Duration.ofMillis(50), hedgeAfter);
+        return new ModelClient(chat, limiter, metrics, policy, 4, 4, 0.5, Duration.ofMillis(300));
+    }
+
+    @Test
+    void retriesTransientFailures() {
+        var models = client(stub(new long[] {0}, new boolean[] {true, true, false}),
+                Duration.ofSeconds(5), 2, Duration.ZERO);
+
+        assertEquals("reply 2", models.call("generate-commit", "p"));
+        assertEquals(3, calls.get());
+        assertEquals(2, registry.counter("model.call.retries", "endpoint", "generate-commit").count());
+    }
+
+    @Test
+    void deadlineCoversAllAttempts() {
+        var models = client(stub(new long[] {2_000}, new boolean[] {false}),
+                Duration.ofMillis(200), 2, Duration.ZERO);
+
+        long start = System.nanoTime();
+        assertThrows(ModelTimeoutException.class, () -> models.call("generate-commit", "p"));
+        assertTrue(System.nanoTime() - start < 1_000_000_000L, "should give up at the deadline, not after the call");
+        assertEquals(1, calls.get()); // no retry once the deadline is spent
+    }
+
+    @Test
+    void abandonedCallsKeepTheirSlotUntilTheyReturn() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger(), peak = new AtomicInteger();
+        ChatClient chat = mock(ChatClient.class, RETURNS_DEEP_STUBS);
+        when(chat.prompt(anyString()).call().content()).thenAnswer(inv -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                long end = System.nanoTime() + 300_000_000L;
+                while (System.nanoTime() < end) { // a client that ignores interrupts
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+                return "late";
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+        var models = client(chat, Duration.ofMillis(50), 2, Duration.ofMillis(20));
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 16; i++) {
+                callers.submit(() -> assertThrows(RuntimeException.class, () -> models.call("generate-commit", "p")));
+            }
+        }
+        assertTrue(peak.get() <= 4, "in flight: " + peak.get());
+        for (int i = 0; i < 50 && limiter.inFlight() > 0; i++) Thread.sleep(10);
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void hedgeAnswersWhenFirstRequestIsSlow() {
+        var models = client(stub(new long[] {2_000, 0}, new boolean[] {false}),
+                Duration.ofSeconds(5), 0, Duration.ofMillis(50));
+
+        long start = System.nanoTime();
+        assertEquals("reply 1", models.call("pr-polish", "p"));
+        assertTrue(System.nanoTime() - start < 1_000_000_000L, "hedged reply should win");
+        assertEquals(1, registry.counter("model.call.hedges", "endpoint", "pr-polish").count());
+    }
+
+    @Test
+    void openCircuitSkipsTheModelUntilAProbeSucceeds() throws InterruptedException {
+        var models = client(stub(new long[] {0}, new boolean[] {true, true, true, true, false}),
+                Duration.ofSeconds(5), 0, Duration.ZERO);
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IllegalStateException.class, () -> models.call("generate-commit", "p"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, models.circuitState());
+        assertThrows(ModelUnavailableException.class, () -> models.call("generate-commit", "p"));
+        assertEquals(4, calls.get()); // refused without a model call
+
+        Thread.sleep(350);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, models.circuitState());
+        assertEquals("reply 4", models.call("generate-commit", "p"));
+        assertEquals(CircuitBreaker.State.CLOSED, models.circuitState());
+    }
+
+    @Test
+    void commitServiceFallsBackWhileCircuitIsOpen() {
+        var models = client(stub(new long[] {0}, new boolean[] {true}), Duration.ofSeconds(5), 0, Duration.ZERO);
+        var service = new CommitService(models,
+                new CommitCache(false, 1, Duration.ofMinutes(1), "", registry),
+                new CommitExamples(null, null, metrics, registry, false, "", 3, 0.8, 0.97, 8, 12), limiter, metrics,
+                new PromptTemplates("", Duration.ZERO), registry, "", "", false);
+        List<String> files = List.of("src/main/java/App.java");
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(CommitService.Source.FALLBACK, service.generateWithSource("r", "a", files, "+x").source());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, models.circuitState());
+        assertEquals(CommitService.Source.FALLBACK, service.generateWithSource("r", "a", files, "+y").source());
+        assertEquals(4, calls.get());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** {@link PrDescriptionRenderer} output for single commits. */
+class PrDescriptionRendererTest {
+
+    private static String render(CommitMessage... commits) {
+        var renderer = new PrDescriptionRenderer();
+        for (CommitMessage c : commits) renderer.accept(c);
+        return renderer.render();
+    }
+
+    /** The original split-based body loop, kept as the reference for the in-place scanner. */
+    private static String referenceBullets(String body) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : body.strip().split("\\R+")) {
+            var tline = line.trim();
+            if (tline.isBlank()) continue;
+            sb.append(tline.startsWith("- ") ? "  " + tline : "  - " + tline).append("\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void bodyBulletsMatchTheSplitBasedOutput() {
+        List<String> bodies = List.of(
+                "- ", "-", " - ", "-\n- ", "--", "-x", "- x",
+                "  - indented bullet\n\t- tab bullet\n    plain line",
+                "first\r\n\r\n- second  \u2028-third\u0085 - \f\u000B-",
+                "\u0001- control\u0001\n - \u0002");
+        for (String body : bodies) {
+            String md = render(new CommitMessage("fix", null, "s", body, null, List.of()));
+            assertEquals("### fix\n- fix: s\n" + referenceBullets(body) + "\n",
+                    md.substring(md.indexOf("### fix"), md.indexOf("_Generated")), body);
+        }
+        assertTrue(render(new CommitMessage("fix", null, "s", "- ", null, List.of())).contains("- fix: s\n  - -\n"));
+    }
+
+    @Test
+    void breakingChangeOfOnlyControlCharactersIsNotListed() {
+        String md = render(new CommitMessage("feat", null, "x", null, "\u0001\u0002 ", List.of()));
+        assertFalse(md.contains("## ⚠️ Breaking Changes"), md);
+
+        md = render(new CommitMessage("feat", null, "x", null, "\u0001 drops v1 \u0002", List.of()));
+        assertTrue(md.contains("## ⚠️ Breaking Changes\n- drops v1\n\n"), md);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** {@link PromptTemplates}: the slot syntax, override directory and hot reload. */
+class PromptTemplatesTest {
+
+    @TempDir
+    Path dir;
+
+    /** The prompt CommitService built with {@code String.formatted} before it moved to {@code commit-message.st}. */
+    private static final String OLD_PROMPT = """
+            SYSTEM:
+            You are a senior software engineer generating Conventional Commit messages from code diffs.
+
+            Format output as ONLY valid JSON matching:
+            {
+             "type": "feat|fix|docs|style|refactor|test|perf|build|ci|chore|revert",
+             "scope": string|null,
+             "subject": string,
+             "body": string|null,
+             "breakingChange": string|null,
+             "issues": string[]
+            }
+
+            Rules:
+            - Read the diff carefully — summarize WHAT was changed and WHY, not just file names.
+            - Mention new methods, fields, refactorings, bug fixes, etc., in the subject/body.
+            - Choose the type according to the nature of the change (e.g., "feat" for new methods, "fix" for bug fixes, "refactor" for code restructuring, "chore" for non-functional).
+            - Set a concrete scope based on the most relevant file path or module (e.g., "service", "controller").
+            - Use the body to briefly describe details from the diff (e.g., "Added getter for 'name' field").
+            - Only use a generic description if the diff is empty.
+
+            USER:
+            Repository: %s
+            Author: %s
+            Changed files:
+            %s
+
+            Diff (truncated if large):
+            %s
+
+            Output ONLY the JSON object. No code fences, no extra text.
+            """;
+
+    private PromptTemplates templates(Duration reloadInterval) {
+        return new PromptTemplates(dir.toString(), reloadInterval);
+    }
+
+    /** Writes {@code text} and moves the mtime on, so a reload sees the change even within one clock tick. */
+    private void write(String name, byte[] text, int generation) throws IOException {
+        Path file = dir.resolve(name + ".st");
+        Files.write(file, text);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_700_000_000_000L + generation * 1000L));
+    }
+
+    @Test
+    void slotsAndEscapes() {
+        PromptTemplates.Template t = PromptTemplates.parse("t", "v",
+                "\\<a> is <a>, <not a slot>, <1x>, <b_2>< c>\\x <unclosed");
+
+        assertEquals("<a> is A, <not a slot>, <1x>, B< c>\\x <unclosed", t.render(Map.of("a", "A", "b_2", "B")));
+        assertEquals("<a>", PromptTemplates.parse("t", "v", "<a>").render(Map.of("a", "<a>"))); // values are not re-expanded
+    }
+
+    @Test
+    void missingSlotValueNamesTheSlot() {
+        PromptTemplates.Template t = PromptTemplates.parse("greeting", "v", "hi <name> from <place>");
+
+        var e = assertThrows(IllegalArgumentException.class, () -> t.render(Map.of("name", "x")));
+        assertTrue(e.getMessage().contains("<place>") && e.getMessage().contains("greeting"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> templates(Duration.ZERO).get("no-such-template"));
+    }
+
+    @Test
+    void commitMessagePromptMatchesTheOldBuilder() {
+        PromptTemplates.Template t = new PromptTemplates("", Duration.ZERO).get(CommitService.PROMPT_TEMPLATE);
+        List<List<String>> inputs = List.of(
+                List.of("repo", "dev", "", ""),
+                List.of("acme/api", "Ana", "src/A.java\nsrc/B.java", "diff --git a/src/A.java b/src/A.java\n+int x;\n"),
+                List.of("<repo>", "%s", "<files>\n\\<diff>", "+ List<String> xs = Map.<K, V>of(); // 100%\n"));
+        for (List<String> in : inputs) {
+            List<String> files = in.get(2).isEmpty() ? List.of() : List.of(in.get(2).split("\n"));
+            String expected = OLD_PROMPT.formatted(in.get(0), in.get(1), String.join("\n", files), in.get(3));
+            assertEquals(expected, CommitService.buildPrompt(t, in.get(0), in.get(1), files, in.get(3)));
+        }
+    }
+
+    @Test
+    void overrideDirectoryWinsOverTheBundledTemplate() throws IOException {
+        String bundled = new PromptTemplates("", Duration.ZERO).get(CommitService.PROMPT_TEMPLATE).version();
+        write(CommitService.PROMPT_TEMPLATE, "mine: <repo>".getBytes(), 0);
+        PromptTemplates templates = templates(Duration.ZERO);
+
+        PromptTemplates.Template t = templates.get(CommitService.PROMPT_TEMPLATE);
+        assertEquals("mine: r", t.render(Map.of("repo", "r")));
+        assertNotEquals(bundled, t.version());
+
+        write("added-later", "late <x>".getBytes(), 0);
+        assertEquals("late 1", templates.get("added-later").render(Map.of("x", "1")));
+    }
+
+    @Test
+    void reloadsAChangedFileAndKeepsTheLastGoodVersion() throws IOException {
+        write("t", "one <x>".getBytes(), 0);
+        PromptTemplates templates = templates(Duration.ofNanos(1));
+        PromptTemplates.Template first = templates.get("t");
+        assertEquals("one 1", first.render(Map.of("x", "1")));
+
+        write("t", "two <x>".getBytes(), 1);
+        PromptTemplates.Template second = templates.get("t");
+        assertEquals("two 1", second.render(Map.of("x", "1")));
+        assertNotEquals(first.version(), second.version());
+
+        write("t", new byte[] {'b', 'a', 'd', (byte) 0xC3, '('}, 2); // not UTF-8: the reload fails
+        assertEquals(second.version(), templates.get("t").version());
+
+        write("t", "one <x>".getBytes(), 3); // back to the first text: same version, same compiled template
+        assertEquals(first, templates.get("t"));
+    }
+
+    @Test
+    void filesAreCheckedAtMostOncePerInterval() throws IOException {
+        write("t", "one <x>".getBytes(), 0);
+        PromptTemplates templates = templates(Duration.ofHours(1));
+        templates.get("t");
+
+        write("t", "two <x>".getBytes(), 1);
+        assertEquals("one 1", templates.get("t").render(Map.of("x", "1")));
+    }
+}
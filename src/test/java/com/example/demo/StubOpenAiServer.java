@@ -0,0 +1,228 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the OpenAI chat completions API ({@code POST /v1/chat/completions}, plain and
+ * {@code stream: true}) and embeddings API ({@code POST /v1/embeddings}), so load tests measure
+ * this app rather than someone else's model.
+ * <p>
+ * Every reply waits {@link Profile#latency} (± {@code jitter}) before the first token and then
+ * produces tokens (four characters each) at {@link Profile#tokensPerSecond}. Replies follow the
+ * prompt: a commit prompt gets a commit-message JSON, a polish prompt gets its {@code ---} block
+ * back, the title/summary prompt gets a title and summary. Embeddings hash the input's words into
+ * {@value #EMBEDDING_DIMS} dimensions after a tenth of the first-token latency, so texts sharing
+ * most of their words come out similar.
+ */
+final class StubOpenAiServer implements AutoCloseable {
+
+    /** Model timing; {@code tokensPerSecond} of 0 sends the whole reply at once, {@code errorRate} answers 500s. */
+    record Profile(String name, Duration latency, Duration jitter, double tokensPerSecond, double errorRate) {
+
+        /** {@code instant}, {@code fast}, {@code typical}, {@code slow} or {@code flaky}. */
+        static Profile named(String name) {
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "instant" -> new Profile(name, Duration.ZERO, Duration.ZERO, 0, 0);
+                case "fast" -> new Profile(name, Duration.ofMillis(50), Duration.ofMillis(20), 500, 0);
+                case "typical" -> new Profile(name, Duration.ofMillis(400), Duration.ofMillis(150), 80, 0);
+                case "slow" -> new Profile(name, Duration.ofMillis(1500), Duration.ofMillis(500), 25, 0);
+                case "flaky" -> new Profile(name, Duration.ofMillis(400), Duration.ofMillis(150), 80, 0.05);
+                default -> throw new IllegalArgumentException("Unknown stub profile '" + name + "'");
+            };
+        }
+    }
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final int CHARS_PER_TOKEN = 4;
+    static final int EMBEDDING_DIMS = 1536;
+
+    private final Profile profile;
+    private final HttpServer server;
+    private final AtomicLong requests = new AtomicLong();
+
+    StubOpenAiServer(Profile profile) throws IOException {
+        this.profile = profile;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/v1/chat/completions", this::complete);
+        server.createContext("/v1/embeddings", this::embed);
+        server.start();
+    }
+
+    int port() { return server.getAddress().getPort(); }
+
+    Profile profile() { return profile; }
+
+    long requests() { return requests.get(); }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    // ---------- handler ----------
+
+    private void complete(HttpExchange ex) throws IOException {
+        try (ex) {
+            requests.incrementAndGet();
+            JsonNode req = JSON.readTree(ex.getRequestBody());
+            JsonNode messages = req.path("messages");
+            String prompt = text(messages.path(messages.size() - 1).path("content"));
+            String model = req.path("model").asText("stub");
+            boolean stream = req.path("stream").asBoolean(false);
+
+            sleep(firstTokenDelay());
+            if (profile.errorRate() > 0 && ThreadLocalRandom.current().nextDouble() < profile.errorRate()) {
+                byte[] err = "{\"error\":{\"message\":\"stub overloaded\",\"type\":\"server_error\"}}"
+                        .getBytes(StandardCharsets.UTF_8);
+                ex.getResponseHeaders().set("Content-Type", "application/json");
+                ex.sendResponseHeaders(500, err.length);
+                ex.getResponseBody().write(err);
+                return;
+            }
+            String reply = reply(prompt);
+            if (stream) streamReply(ex, model, reply);
+            else completeReply(ex, model, prompt, reply);
+        }
+    }
+
+    private void embed(HttpExchange ex) throws IOException {
+        try (ex) {
+            requests.incrementAndGet();
+            JsonNode req = JSON.readTree(ex.getRequestBody());
+            JsonNode input = req.path("input");
+            sleep(firstTokenDelay() / 10);
+
+            ObjectNode body = JSON.createObjectNode().put("object", "list").put("model", req.path("model").asText("stub"));
+            var data = body.putArray("data");
+            int chars = 0;
+            for (int i = 0; i < (input.isArray() ? input.size() : 1); i++) {
+                String text = input.isArray() ? input.get(i).asText("") : input.asText("");
+                chars += text.length();
+                var vector = data.addObject().put("object", "embedding").put("index", i).putArray("embedding");
+                for (float x : embedding(text)) vector.add(x);
+            }
+            int tokens = ModelMetrics.estimateTokens(chars);
+            body.putObject("usage").put("prompt_tokens", tokens).put("total_tokens", tokens);
+
+            byte[] bytes = JSON.writeValueAsBytes(body);
+            ex.getResponseHeaders().set("Content-Type", "application/json");
+            ex.sendResponseHeaders(200, bytes.length);
+            ex.getResponseBody().write(bytes);
+        }
+    }
+
+    private void completeReply(HttpExchange ex, String model, String prompt, String reply) throws IOException {
+        sleep(generationNanos(reply.length()));
+        ObjectNode body = JSON.createObjectNode()
+                .put("id", "chatcmpl-stub").put("object", "chat.completion")
+                .put("created", System.currentTimeMillis() / 1000).put("model", model);
+        ObjectNode choice = body.putArray("choices").addObject().put("index", 0).put("finish_reason", "stop");
+        choice.putObject("message").put("role", "assistant").put("content", reply);
+        int promptTokens = ModelMetrics.estimateTokens(prompt.length()), replyTokens = ModelMetrics.estimateTokens(reply.length());
+        body.putObject("usage").put("prompt_tokens", promptTokens).put("completion_tokens", replyTokens)
+                .put("total_tokens", promptTokens + replyTokens);
+
+        byte[] bytes = JSON.writeValueAsBytes(body);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, bytes.length);
+        ex.getResponseBody().write(bytes);
+    }
+
+    private void streamReply(HttpExchange ex, String model, String reply) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "text/event-stream");
+        ex.sendResponseHeaders(200, 0); // chunked
+        OutputStream out = ex.getResponseBody();
+        long perToken = generationNanos(CHARS_PER_TOKEN);
+        for (int i = 0; i < reply.length(); i += CHARS_PER_TOKEN) {
+            if (i > 0) sleep(perToken);
+            event(out, model, reply.substring(i, Math.min(reply.length(), i + CHARS_PER_TOKEN)), null);
+        }
+        event(out, model, null, "stop");
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void event(OutputStream out, String model, String token, String finishReason) throws IOException {
+        ObjectNode body = JSON.createObjectNode()
+                .put("id", "chatcmpl-stub").put("object", "chat.completion.chunk")
+                .put("created", System.currentTimeMillis() / 1000).put("model", model);
+        ObjectNode choice = body.putArray("choices").addObject().put("index", 0).put("finish_reason", finishReason);
+        ObjectNode delta = choice.putObject("delta");
+        if (token != null) delta.put("content", token);
+        out.write(("data: " + JSON.writeValueAsString(body) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    // ---------- replies ----------
+
+    static String reply(String prompt) {
+        if (prompt.contains("Conventional Commit")) {
+            return """
+                    {"type":"feat","scope":"service","subject":"add request paging",\
+                    "body":"Add cursor-based paging to the list endpoint.","breakingChange":null,"issues":[]}""";
+        }
+        if (prompt.contains("title and summary")) {
+            return "# Add request paging\n\n## Summary\n- Adds paging to the list endpoints.";
+        }
+        int open = prompt.indexOf("---\n"), close = prompt.lastIndexOf("\n---");
+        if (open >= 0 && close > open) return prompt.substring(open + 4, close);
+        return "OK";
+    }
+
+    /** Bag of words: each word adds ±1 to a dimension picked by its hash. */
+    static float[] embedding(String text) {
+        float[] v = new float[EMBEDDING_DIMS];
+        for (String word : text.split("[^\\p{Alnum}_]+")) {
+            if (word.isEmpty()) continue;
+            int h = word.hashCode() * 0x9E3779B9;
+            v[Math.floorMod(h, EMBEDDING_DIMS)] += (h & 0x8000) == 0 ? 1 : -1;
+        }
+        return v;
+    }
+
+    private static String text(JsonNode content) {
+        if (content.isArray()) { // [{"type":"text","text":...}]
+            StringBuilder sb = new StringBuilder();
+            content.forEach(part -> sb.append(part.path("text").asText("")));
+            return sb.toString();
+        }
+        return content.asText("");
+    }
+
+    // ---------- timing ----------
+
+    private long firstTokenDelay() {
+        long base = profile.latency().toNanos(), jitter = profile.jitter().toNanos();
+        return jitter <= 0 ? base : Math.max(0, base + ThreadLocalRandom.current().nextLong(-jitter, jitter + 1));
+    }
+
+    private long generationNanos(int chars) {
+        if (profile.tokensPerSecond() <= 0) return 0;
+        return (long) (ModelMetrics.estimateTokens(chars) / profile.tokensPerSecond() * 1e9);
+    }
+
+    private static void sleep(long nanos) {
+        if (nanos <= 0) return;
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
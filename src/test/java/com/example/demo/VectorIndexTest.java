@@ -0,0 +1,70 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** {@link VectorIndex} on clustered random vectors, the shape diff embeddings tend to have. */
+class VectorIndexTest {
+
+    private static final int DIMS = 64;
+
+    private final Random random = new Random(42);
+    private final float[][] centres = new float[50][DIMS];
+
+    {
+        for (float[] c : centres) for (int i = 0; i < DIMS; i++) c[i] = (float) random.nextGaussian();
+    }
+
+    private float[] near(int centre) {
+        float[] v = new float[DIMS];
+        for (int i = 0; i < DIMS; i++) v[i] = centres[centre][i] + 0.3f * (float) random.nextGaussian();
+        return v;
+    }
+
+    @Test
+    void approximateSearchFindsWhatAScanFinds() {
+        var exact = new VectorIndex(null, 8, 10, 7, Integer.MAX_VALUE);
+        var lsh = new VectorIndex(null, 8, 10, 7, 0);
+        for (int n = 0; n < 5_000; n++) {
+            float[] v = near(n % centres.length);
+            exact.add(v);
+            lsh.add(v);
+        }
+
+        int found = 0, queries = 200;
+        for (int q = 0; q < queries; q++) {
+            float[] v = near(random.nextInt(centres.length));
+            VectorIndex.Hit best = exact.nearest(v, 1).get(0);
+            if (lsh.nearest(v, 3).stream().anyMatch(h -> h.id() == best.id())) found++;
+        }
+        assertTrue(found >= queries * 0.9, "LSH found the nearest vector for only " + found + "/" + queries);
+    }
+
+    @Test
+    void reopensFromDisk(@TempDir Path dir) {
+        Path file = dir.resolve("vectors.f32");
+        float[] probe = near(3);
+        int id;
+        try (var index = new VectorIndex(file, 4, 8, 7, 16)) {
+            for (int n = 0; n < 100; n++) index.add(near(n % centres.length));
+            id = index.add(probe);
+        }
+
+        // a different LSH shape is ignored: the file keeps the one it was created with
+        try (var index = new VectorIndex(file, 2, 4, 99, 16)) {
+            assertEquals(101, index.size());
+            assertEquals(DIMS, index.dimensions());
+            List<VectorIndex.Hit> hits = index.nearest(probe, 1);
+            assertEquals(id, hits.get(0).id());
+            assertEquals(1f, hits.get(0).score(), 1e-5);
+            assertEquals(101, index.add(near(5))); // appends continue after the stored records
+        }
+    }
+}